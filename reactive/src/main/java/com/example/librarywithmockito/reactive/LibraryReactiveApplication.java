@@ -0,0 +1,13 @@
+package com.example.librarywithmockito.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class LibraryReactiveApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LibraryReactiveApplication.class, args);
+    }
+
+}
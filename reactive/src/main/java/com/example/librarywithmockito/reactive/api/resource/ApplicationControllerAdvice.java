@@ -0,0 +1,33 @@
+package com.example.librarywithmockito.reactive.api.resource;
+
+import com.example.librarywithmockito.reactive.api.resource.exception.ApiErros;
+import com.example.librarywithmockito.reactive.exception.BusinessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestControllerAdvice
+public class ApplicationControllerAdvice {
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErros handleValidationException(WebExchangeBindException ex){
+        return new ApiErros(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(BusinessException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErros handleBusinessException(BusinessException ex){
+        return new ApiErros(ex);
+    }
+
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ApiErros> handleResponseStatusException(ResponseStatusException ex){
+        return new ResponseEntity<>(new ApiErros(ex), ex.getStatus());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.example.librarywithmockito.reactive.api.resource;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.BookDto;
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanDto;
+import com.example.librarywithmockito.reactive.api.resource.dto.PageDTO;
+import com.example.librarywithmockito.reactive.model.Book;
+import com.example.librarywithmockito.reactive.service.BookService;
+import com.example.librarywithmockito.reactive.service.LoanService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/books")
+public class BookController {
+
+    private final BookService bookService;
+    private final LoanService loanService;
+
+    public BookController(BookService bookService, LoanService loanService) {
+        this.bookService = bookService;
+        this.loanService = loanService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDto> create(@Valid @RequestBody BookDto dto){
+        Book entity = Book.builder()
+                .title(dto.getTitle())
+                .author(dto.getAuthor())
+                .isbn(dto.getIsbn())
+                .copies(dto.getCopies())
+                .build();
+        return bookService.save(entity).map(BookDto::of);
+    }
+
+    @GetMapping("{id}")
+    public Mono<BookDto> get(@PathVariable Long id){
+        return findBook(id).map(BookDto::of);
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id) {
+        return findBook(id).flatMap(bookService::delete);
+    }
+
+    @PutMapping("{id}")
+    public Mono<BookDto> update(@PathVariable Long id, @RequestBody BookDto dto){
+        return findBook(id)
+                .flatMap(book -> {
+                    book.setAuthor(dto.getAuthor());
+                    book.setTitle(dto.getTitle());
+                    return bookService.update(book);
+                })
+                .map(BookDto::of);
+    }
+
+    @GetMapping("{id}/loans")
+    public Mono<PageDTO<LoanDto>> loansByBook(@PathVariable Long id,
+                                              @RequestParam(value = "expand", required = false) List<String> expand,
+                                              Pageable pageable){
+        boolean expandBook = expand != null && expand.contains(LoanDto.EXPAND_BOOK);
+        return findBook(id).flatMap(book -> loanService
+                .getLoanSummariesByBook(book, pageable)
+                .map(page -> PageDTO.of(page, summary -> LoanDto.of(summary, expandBook))));
+    }
+
+    private Mono<Book> findBook(Long id) {
+        return bookService.getById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Book not found")));
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.example.librarywithmockito.reactive.api.resource;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanDto;
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanFilterDTO;
+import com.example.librarywithmockito.reactive.api.resource.dto.PageDTO;
+import com.example.librarywithmockito.reactive.api.resource.dto.ReturnedLoanDTO;
+import com.example.librarywithmockito.reactive.model.Loan;
+import com.example.librarywithmockito.reactive.service.BookService;
+import com.example.librarywithmockito.reactive.service.CustomerService;
+import com.example.librarywithmockito.reactive.service.LoanService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/loans")
+public class LoanController {
+
+    private final LoanService service;
+    private final BookService bookService;
+    private final CustomerService customerService;
+
+    public LoanController(LoanService service, BookService bookService, CustomerService customerService) {
+        this.service = service;
+        this.bookService = bookService;
+        this.customerService = customerService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> create(@RequestBody LoanDto dto) {
+        return bookService
+                .getBookByIsbn(dto.getIsbn())
+                .switchIfEmpty(Mono.error(() ->
+                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+                .zipWith(customerService.resolve(dto.getCustomer(), dto.getEmail()))
+                .flatMap(found -> service.save(Loan.builder()
+                        .bookId(found.getT1().getId())
+                        .customerId(found.getT2().getId())
+                        .loanDate(LocalDate.now())
+                        .build()))
+                .map(Loan::getId);
+    }
+
+    @PatchMapping("{id}")
+    public Mono<Void> returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto) {
+        return service.getById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Loan not found")))
+                .flatMap(loan -> service.setReturned(loan, Boolean.TRUE.equals(dto.getReturned())))
+                .then();
+    }
+
+    @GetMapping
+    public Mono<PageDTO<LoanDto>> find(LoanFilterDTO dto,
+                                       @RequestParam(value = "expand", required = false) List<String> expand,
+                                       Pageable pageRequest) {
+        boolean expandBook = expand != null && expand.contains(LoanDto.EXPAND_BOOK);
+        return service.findSummaries(dto, pageRequest)
+                .map(page -> PageDTO.of(page, summary -> LoanDto.of(summary, expandBook)));
+    }
+
+}
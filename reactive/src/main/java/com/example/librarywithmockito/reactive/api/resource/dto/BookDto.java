@@ -0,0 +1,37 @@
+package com.example.librarywithmockito.reactive.api.resource.dto;
+
+import com.example.librarywithmockito.reactive.model.Book;
+import lombok.*;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BookDto {
+
+    private Long id;
+    @NotEmpty
+    private String title;
+    @NotEmpty
+    private String author;
+    @NotEmpty
+    private String isbn;
+    @Min(1)
+    private Integer copies;
+    private Integer availableCopies;
+
+    public static BookDto of(Book book) {
+        return BookDto.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .copies(book.getCopies())
+                .availableCopies(book.getAvailableCopies())
+                .build();
+    }
+}
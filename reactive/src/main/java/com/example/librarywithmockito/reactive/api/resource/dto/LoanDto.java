@@ -0,0 +1,45 @@
+package com.example.librarywithmockito.reactive.api.resource.dto;
+
+import com.example.librarywithmockito.reactive.repository.projection.LoanSummary;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LoanDto {
+
+    public static final String EXPAND_BOOK = "book";
+
+    private Long id;
+    @NotEmpty
+    private String isbn;
+    @NotEmpty
+    private String customer;
+    @NotEmpty
+    private String email;
+    private BookDto book;
+
+    public static LoanDto of(LoanSummary summary, boolean expandBook) {
+        return LoanDto.builder()
+                .id(summary.getId())
+                .isbn(summary.getIsbn())
+                .customer(summary.getCustomer())
+                .email(summary.getEmail())
+                .book(expandBook ? BookDto.builder()
+                        .id(summary.getBookId())
+                        .title(summary.getBookTitle())
+                        .author(summary.getBookAuthor())
+                        .isbn(summary.getIsbn())
+                        .build() : null)
+                .build();
+    }
+
+}
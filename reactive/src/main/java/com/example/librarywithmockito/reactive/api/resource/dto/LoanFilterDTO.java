@@ -0,0 +1,17 @@
+package com.example.librarywithmockito.reactive.api.resource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LoanFilterDTO {
+
+    private String isbn;
+    private String customer;
+
+}
@@ -0,0 +1,14 @@
+package com.example.librarywithmockito.reactive.api.resource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class ReturnedLoanDTO {
+    private Boolean returned;
+}
@@ -0,0 +1,8 @@
+package com.example.librarywithmockito.reactive.exception;
+
+public class BusinessException extends RuntimeException {
+
+    public BusinessException(String s) {
+        super(s);
+    }
+}
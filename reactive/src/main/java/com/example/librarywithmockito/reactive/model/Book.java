@@ -0,0 +1,33 @@
+package com.example.librarywithmockito.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table("book")
+public class Book {
+
+    @Id
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+
+    /**
+     * Physical copies of the title, as in the servlet application. Both counters only move
+     * through the conditional updates in {@code BookRepository}.
+     */
+    private Integer copies;
+
+    @Column("available_copies")
+    private Integer availableCopies;
+
+}
@@ -0,0 +1,25 @@
+package com.example.librarywithmockito.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table("customer")
+public class Customer {
+
+    @Id
+    private Long id;
+    private String name;
+    private String email;
+
+    public static Customer of(String name, String email) {
+        return Customer.builder().name(name).email(email).build();
+    }
+}
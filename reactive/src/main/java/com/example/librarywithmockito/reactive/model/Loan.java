@@ -0,0 +1,37 @@
+package com.example.librarywithmockito.reactive.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table("loan")
+public class Loan {
+
+    @Id
+    private Long id;
+
+    @Column("customer_id")
+    private Long customerId;
+
+    @Column("id_book")
+    private Long bookId;
+
+    @Column("loan_date")
+    private LocalDate loanDate;
+
+    private Boolean returned;
+
+    @Column("return_date")
+    private LocalDate returnDate;
+
+}
@@ -0,0 +1,31 @@
+package com.example.librarywithmockito.reactive.repository;
+
+import com.example.librarywithmockito.reactive.model.Book;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface BookRepository extends ReactiveCrudRepository<Book, Long> {
+
+    Mono<Boolean> existsByIsbn(String isbn);
+
+    Mono<Book> findByIsbn(String isbn);
+
+    /**
+     * Only the descriptive columns, so a stale copy of the book never undoes a loan or a return.
+     */
+    @Modifying
+    @Query(" update book set title = :title, author = :author where id = :id ")
+    Mono<Integer> updateDetails( @Param("id") Long id, @Param("title") String title, @Param("author") String author );
+
+    @Modifying
+    @Query(" update book set available_copies = available_copies - 1 where id = :id and available_copies > 0 ")
+    Mono<Integer> claimCopy( @Param("id") Long id );
+
+    @Modifying
+    @Query(" update book set available_copies = available_copies + 1 where id = :id and available_copies < copies ")
+    Mono<Integer> releaseCopy( @Param("id") Long id );
+
+}
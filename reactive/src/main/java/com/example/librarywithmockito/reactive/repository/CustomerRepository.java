@@ -0,0 +1,15 @@
+package com.example.librarywithmockito.reactive.repository;
+
+import com.example.librarywithmockito.reactive.model.Customer;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+public interface CustomerRepository extends ReactiveCrudRepository<Customer, Long> {
+
+    @Query(" select * from customer where name = :name " +
+            " and ( email = :email or ( email is null and cast(:email as varchar) is null ) ) limit 1 ")
+    Mono<Customer> findByNameAndEmail( @Param("name") String name, @Param("email") String email );
+
+}
@@ -0,0 +1,54 @@
+package com.example.librarywithmockito.reactive.repository;
+
+import com.example.librarywithmockito.reactive.model.Loan;
+import com.example.librarywithmockito.reactive.repository.projection.LoanSummary;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+public interface LoanRepository extends ReactiveCrudRepository<Loan, Long> {
+
+    String SUMMARY = " select l.id as id, b.isbn as isbn, c.name as customer, c.email as email, " +
+            " b.id as book_id, b.title as book_title, b.author as book_author " +
+            " from loan l join book b on b.id = l.id_book left join customer c on c.id = l.customer_id ";
+
+    @Query( SUMMARY + " where l.id_book = :bookId order by l.id limit :limit offset :offset " )
+    Flux<LoanSummary> findSummaryByBook(
+            @Param("bookId") Long bookId,
+            @Param("offset") long offset,
+            @Param("limit") int limit
+    );
+
+    Mono<Long> countByBookId( Long bookId );
+
+    @Query( SUMMARY + " where b.isbn = :isbn " +
+            " or l.customer_id in ( select n.id from customer n where n.name = :customer ) " +
+            " order by l.id limit :limit offset :offset " )
+    Flux<LoanSummary> findSummaryByBookIsbnOrCustomer(
+            @Param("isbn") String isbn,
+            @Param("customer") String customer,
+            @Param("offset") long offset,
+            @Param("limit") int limit
+    );
+
+    @Query(" select count(*) from loan l join book b on b.id = l.id_book where b.isbn = :isbn " +
+            " or l.customer_id in ( select n.id from customer n where n.name = :customer ) ")
+    Mono<Long> countByBookIsbnOrCustomer( @Param("isbn") String isbn, @Param("customer") String customer );
+
+    /**
+     * Only one of two concurrent returns of the same loan updates a row, so the copy goes back
+     * to the shelf once.
+     */
+    @Modifying
+    @Query(" update loan set returned = true, return_date = :date where id = :id and return_date is null ")
+    Mono<Integer> markReturned( @Param("id") Long id, @Param("date") LocalDate date );
+
+    @Modifying
+    @Query(" update loan set returned = false, return_date = null where id = :id and return_date is not null ")
+    Mono<Integer> reopen( @Param("id") Long id );
+}
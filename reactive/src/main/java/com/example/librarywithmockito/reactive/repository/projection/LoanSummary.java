@@ -0,0 +1,24 @@
+package com.example.librarywithmockito.reactive.repository.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Row of the loan listings: R2DBC has no joins between aggregates, so the listing queries
+ * select straight into this class instead of the {@code Loan} entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSummary {
+
+    private Long id;
+    private String isbn;
+    private String customer;
+    private String email;
+    private Long bookId;
+    private String bookTitle;
+    private String bookAuthor;
+
+}
@@ -0,0 +1,17 @@
+package com.example.librarywithmockito.reactive.service;
+
+import com.example.librarywithmockito.reactive.model.Book;
+import reactor.core.publisher.Mono;
+
+public interface BookService {
+
+    Mono<Book> save(Book entity);
+
+    Mono<Book> getById(Long id);
+
+    Mono<Void> delete(Book book);
+
+    Mono<Book> update(Book book);
+
+    Mono<Book> getBookByIsbn(String isbn);
+}
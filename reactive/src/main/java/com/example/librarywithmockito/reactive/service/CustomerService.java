@@ -0,0 +1,9 @@
+package com.example.librarywithmockito.reactive.service;
+
+import com.example.librarywithmockito.reactive.model.Customer;
+import reactor.core.publisher.Mono;
+
+public interface CustomerService {
+
+    Mono<Customer> resolve(String name, String email);
+}
@@ -0,0 +1,22 @@
+package com.example.librarywithmockito.reactive.service;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanFilterDTO;
+import com.example.librarywithmockito.reactive.model.Book;
+import com.example.librarywithmockito.reactive.model.Loan;
+import com.example.librarywithmockito.reactive.repository.projection.LoanSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface LoanService {
+
+    Mono<Loan> save(Loan loan);
+
+    Mono<Loan> getById(Long id);
+
+    Mono<Loan> setReturned(Loan loan, boolean returned);
+
+    Mono<Page<LoanSummary>> getLoanSummariesByBook(Book book, Pageable pageable);
+
+    Mono<Page<LoanSummary>> findSummaries(LoanFilterDTO dto, Pageable pageRequest);
+}
@@ -0,0 +1,57 @@
+package com.example.librarywithmockito.reactive.service.impl;
+
+import com.example.librarywithmockito.reactive.exception.BusinessException;
+import com.example.librarywithmockito.reactive.model.Book;
+import com.example.librarywithmockito.reactive.repository.BookRepository;
+import com.example.librarywithmockito.reactive.service.BookService;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+@Service
+public class BookServiceImpl implements BookService {
+
+    private final BookRepository bookRepository;
+
+    public BookServiceImpl(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    public Mono<Book> save(Book entity) {
+        if( entity.getCopies() == null ){
+            entity.setCopies(1);
+        }
+        entity.setAvailableCopies(entity.getCopies());
+        return bookRepository.existsByIsbn(entity.getIsbn())
+                .flatMap(exists -> exists
+                        ? Mono.error(new BusinessException("Isbn já cadastrado"))
+                        : bookRepository.save(entity));
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return bookRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Void> delete(Book book) {
+        if(book == null || book.getId() == null){
+            return Mono.error(new IllegalArgumentException("Book id cant be null"));
+        }
+        return bookRepository.delete(book);
+    }
+
+    @Override
+    public Mono<Book> update(Book book) {
+        if(book == null || book.getId() == null){
+            return Mono.error(new IllegalArgumentException("Book id cant be null"));
+        }
+        return bookRepository.updateDetails(book.getId(), book.getTitle(), book.getAuthor())
+                .then(bookRepository.findById(book.getId()));
+    }
+
+    @Override
+    public Mono<Book> getBookByIsbn(String isbn) {
+        return bookRepository.findByIsbn(isbn);
+    }
+}
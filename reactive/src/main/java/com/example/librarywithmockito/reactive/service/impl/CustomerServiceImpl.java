@@ -0,0 +1,30 @@
+package com.example.librarywithmockito.reactive.service.impl;
+
+import com.example.librarywithmockito.reactive.model.Customer;
+import com.example.librarywithmockito.reactive.repository.CustomerRepository;
+import com.example.librarywithmockito.reactive.service.CustomerService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolved before the loan's transaction starts, so losing the race on the unique key to a
+ * concurrent request only means reading the winner's row.
+ */
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private final CustomerRepository repository;
+
+    public CustomerServiceImpl(CustomerRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Mono<Customer> resolve(String name, String email) {
+        return repository.findByNameAndEmail(name, email)
+                .switchIfEmpty(Mono.defer(() -> repository.save(Customer.of(name, email))
+                        .onErrorResume(DataIntegrityViolationException.class,
+                                ex -> repository.findByNameAndEmail(name, email))));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.librarywithmockito.reactive.service.impl;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanFilterDTO;
+import com.example.librarywithmockito.reactive.exception.BusinessException;
+import com.example.librarywithmockito.reactive.model.Book;
+import com.example.librarywithmockito.reactive.model.Loan;
+import com.example.librarywithmockito.reactive.repository.BookRepository;
+import com.example.librarywithmockito.reactive.repository.LoanRepository;
+import com.example.librarywithmockito.reactive.repository.projection.LoanSummary;
+import com.example.librarywithmockito.reactive.service.LoanService;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+/**
+ * Copies are claimed and released with the same conditional updates as the servlet
+ * application, so a title with several copies takes that many open loans and no more.
+ */
+@Service
+public class LoanServiceImpl implements LoanService {
+
+    private final LoanRepository repository;
+    private final BookRepository bookRepository;
+
+    public LoanServiceImpl(LoanRepository repository, BookRepository bookRepository) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+    }
+
+    @Override
+    @Transactional
+    public Mono<Loan> save(Loan loan) {
+        return bookRepository.claimCopy(loan.getBookId())
+                .flatMap(claimed -> claimed == 0
+                        ? Mono.error(new BusinessException("Book already loaned"))
+                        : repository.save(loan));
+    }
+
+    @Override
+    public Mono<Loan> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional
+    public Mono<Loan> setReturned(Loan loan, boolean returned) {
+        Mono<Void> change = returned
+                ? repository.markReturned(loan.getId(), LocalDate.now())
+                        .flatMap(updated -> updated == 0 ? Mono.<Void>empty() : bookRepository.releaseCopy(loan.getBookId()).then())
+                : repository.reopen(loan.getId())
+                        .flatMap(updated -> updated == 0 ? Mono.<Void>empty() : bookRepository.claimCopy(loan.getBookId())
+                                .flatMap(claimed -> claimed == 0
+                                        ? Mono.<Void>error(new BusinessException("Book already loaned"))
+                                        : Mono.<Void>empty()));
+        return change.then(repository.findById(loan.getId()));
+    }
+
+    @Override
+    public Mono<Page<LoanSummary>> getLoanSummariesByBook(Book book, Pageable pageable) {
+        return repository.findSummaryByBook(book.getId(), pageable.getOffset(), pageable.getPageSize())
+                .collectList()
+                .zipWith(repository.countByBookId(book.getId()))
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    @Override
+    public Mono<Page<LoanSummary>> findSummaries(LoanFilterDTO dto, Pageable pageRequest) {
+        return repository.findSummaryByBookIsbnOrCustomer(dto.getIsbn(), dto.getCustomer(),
+                        pageRequest.getOffset(), pageRequest.getPageSize())
+                .collectList()
+                .zipWith(repository.countByBookIsbnOrCustomer(dto.getIsbn(), dto.getCustomer()))
+                .map(result -> new PageImpl<>(result.getT1(), pageRequest, result.getT2()));
+    }
+}
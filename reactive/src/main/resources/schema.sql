@@ -0,0 +1,29 @@
+create table if not exists book (
+    id bigint auto_increment primary key,
+    title varchar(255),
+    author varchar(255),
+    isbn varchar(255) unique,
+    copies int default 1 not null,
+    available_copies int default 1 not null,
+    version bigint
+);
+
+create table if not exists customer (
+    id bigint auto_increment primary key,
+    name varchar(100) not null,
+    email varchar(255),
+    constraint uk_customer_name_email unique (name, email)
+);
+
+create table if not exists loan (
+    id bigint auto_increment primary key,
+    customer_id bigint references customer (id),
+    id_book bigint references book (id),
+    loan_date date,
+    returned boolean,
+    return_date date,
+    version bigint
+);
+
+create index if not exists idx_loan_book on loan (id_book);
+create index if not exists idx_loan_customer on loan (customer_id);
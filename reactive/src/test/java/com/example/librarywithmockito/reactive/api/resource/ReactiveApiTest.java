@@ -0,0 +1,150 @@
+package com.example.librarywithmockito.reactive.api.resource;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.BookDto;
+import com.example.librarywithmockito.reactive.api.resource.dto.LoanDto;
+import com.example.librarywithmockito.reactive.api.resource.dto.ReturnedLoanDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class ReactiveApiTest {
+
+    @Autowired
+    WebTestClient client;
+
+    @Test
+    @DisplayName("Deve cadastrar, recusar isbn duplicado, atualizar e excluir um livro")
+    public void bookFlowTest() {
+        BookDto book = client.post().uri("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDto.builder().title("Aventuras").author("Fulano").isbn("r-001").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+
+        client.post().uri("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDto.builder().title("Aventuras").author("Fulano").isbn("r-001").build())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        client.put().uri("/api/books/" + book.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDto.builder().title("Novas Aventuras").author("Ciclano").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("title").isEqualTo("Novas Aventuras")
+                .jsonPath("isbn").isEqualTo("r-001");
+
+        client.delete().uri("/api/books/" + book.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.get().uri("/api/books/" + book.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve emprestar cada cópia uma vez, recusar quando não há cópia livre e devolver")
+    public void bookAndLoanFlowTest() {
+        BookDto book = client.post().uri("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDto.builder().title("Aventuras").author("Fulano").isbn("r-002").copies(2).build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDto.class)
+                .returnResult().getResponseBody();
+
+        LoanDto loan = LoanDto.builder().isbn("r-002").customer("Fulano").email("fulano@email.com").build();
+        Long loanId = client.post().uri("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loan)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Long.class)
+                .returnResult().getResponseBody();
+
+        client.post().uri("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanDto.builder().isbn("r-002").customer("Ciclano").email("ciclano@email.com").build())
+                .exchange()
+                .expectStatus().isCreated();
+
+        client.post().uri("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(loan)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("erros[0]").isEqualTo("Book already loaned");
+
+        client.get().uri("/api/loans?isbn=r-002&expand=book&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(2)
+                .jsonPath("content[0].id").isEqualTo(loanId)
+                .jsonPath("content[0].isbn").isEqualTo("r-002")
+                .jsonPath("content[0].email").isEqualTo("fulano@email.com")
+                .jsonPath("content[0].book.title").isEqualTo("Aventuras");
+
+        for (int i = 0; i < 2; i++) {
+            client.patch().uri("/api/loans/" + loanId)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        client.get().uri("/api/books/" + book.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("copies").isEqualTo(2)
+                .jsonPath("availableCopies").isEqualTo(1);
+
+        client.get().uri("/api/books/" + book.getId() + "/loans?customer=Fulano")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(2)
+                .jsonPath("content[0].customer").isEqualTo("Fulano")
+                .jsonPath("content[1].customer").isEqualTo("Ciclano");
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de validação e recurso não encontrado")
+    public void errorContractTest() {
+        client.post().uri("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDto())
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        client.get().uri("/api/books/9999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("erros[0]").isEqualTo("Book not found");
+
+        client.post().uri("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(LoanDto.builder().isbn("unknown").customer("Fulano").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("erros[0]").isEqualTo("Book not found for passed isbn");
+
+        client.patch().uri("/api/loans/9999")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.librarywithmockito.reactive.loadtest;
+
+import com.example.librarywithmockito.reactive.api.resource.dto.BookDto;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the same read-heavy scenario against the in-process reactive server and, when
+ * {@code -Dloadtest.servlet-url} points at a running instance of the servlet application,
+ * against that one too, logging throughput and latency percentiles side by side.
+ * <p>
+ * The servlet application must run with {@code --application.ratelimit.enabled=false}, as in
+ * {@code LibraryLoadTest}: every connection comes from this one address, so its rate limiter
+ * would answer most of the scenario with 429 and the comparison would measure rejections.
+ *
+ * <pre>mvn test -Dloadtest=true -Dloadtest.servlet-url=http://localhost:8080 -Dloadtest.connections=2000</pre>
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class ComparativeLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 1000);
+    private static final int REQUESTS_PER_CONNECTION = Integer.getInteger("loadtest.requests", 20);
+    private static final int BOOKS = Integer.getInteger("loadtest.books", 200);
+    private static final Duration THINK_TIME = Duration.ofMillis(Long.getLong("loadtest.think-millis", 50));
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    @DisplayName("Compara vazão e latência entre o runtime reativo e o servlet")
+    public void compareRuntimes() {
+        Map<String, String> targets = new LinkedHashMap<>();
+        targets.put("reactive", "http://localhost:" + port);
+        String servletUrl = System.getProperty("loadtest.servlet-url");
+        if( servletUrl != null ){
+            targets.put("servlet", servletUrl);
+        }
+
+        List<Result> results = new ArrayList<>();
+        targets.forEach((name, url) -> results.add(run(name, url)));
+
+        log.info("{}", String.format("%-10s %10s %10s %10s %12s %10s %10s %10s",
+                "target", "requests", "errors", "throttled", "req/s", "p50 ms", "p99 ms", "max ms"));
+        results.forEach(result -> log.info("{}", String.format("%-10s %10d %10d %10d %12.1f %10.1f %10.1f %10.1f",
+                result.name, result.requests, result.errors, result.throttled, result.throughput,
+                result.percentile(0.50), result.percentile(0.99), result.percentile(1.0))));
+
+        results.forEach(result -> {
+            assertThat(result.throttled)
+                    .as("%s answered 429; start it with --application.ratelimit.enabled=false", result.name)
+                    .isZero();
+            assertThat(result.errors).isZero();
+        });
+    }
+
+    private Result run(String name, String baseUrl) {
+        ConnectionProvider provider = ConnectionProvider.builder("loadtest-" + name)
+                .maxConnections(CONNECTIONS)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        WebClient client = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(provider)))
+                .build();
+        try {
+            List<Long> bookIds = seed(client);
+            List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+            long[] errors = new long[2];
+
+            long start = System.nanoTime();
+            Flux.range(0, CONNECTIONS)
+                    .flatMap(connection -> Flux.range(0, REQUESTS_PER_CONNECTION)
+                            .concatMap(i -> timedGet(client, "/api/books/" + bookIds.get((connection + i) % bookIds.size()))
+                                    .doOnNext(latencies::add)
+                                    .onErrorResume(e -> {
+                                        boolean throttled = e instanceof WebClientResponseException
+                                                && ((WebClientResponseException) e).getStatusCode() == HttpStatus.TOO_MANY_REQUESTS;
+                                        synchronized (errors) { errors[throttled ? 1 : 0]++; }
+                                        return Mono.empty();
+                                    })
+                                    .delayElement(THINK_TIME)), CONNECTIONS)
+                    .blockLast();
+            long elapsed = System.nanoTime() - start;
+
+            return new Result(name, latencies, errors[0], errors[1], elapsed);
+        } finally {
+            provider.dispose();
+        }
+    }
+
+    private List<Long> seed(WebClient client) {
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        return Flux.range(0, BOOKS)
+                .flatMap(i -> client.post().uri("/api/books")
+                        .bodyValue(BookDto.builder().title("Livro " + i).author("Autor").isbn(prefix + "-" + i).build())
+                        .retrieve()
+                        .bodyToMono(BookDto.class)
+                        .map(BookDto::getId), 32)
+                .collectList()
+                .block();
+    }
+
+    private Mono<Long> timedGet(WebClient client, String uri) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return client.get().uri(uri)
+                    .retrieve()
+                    .toBodilessEntity()
+                    .map(response -> System.nanoTime() - start);
+        });
+    }
+
+    private static class Result {
+        private final String name;
+        private final List<Long> latencies;
+        private final long requests;
+        private final long errors;
+        private final long throttled;
+        private final double throughput;
+
+        private Result(String name, List<Long> latencies, long errors, long throttled, long elapsedNanos) {
+            this.name = name;
+            this.latencies = new ArrayList<>(latencies);
+            Collections.sort(this.latencies);
+            this.requests = latencies.size() + errors + throttled;
+            this.errors = errors;
+            this.throttled = throttled;
+            this.throughput = latencies.size() / (elapsedNanos / 1_000_000_000d);
+        }
+
+        private double percentile(double percentile) {
+            if( latencies.isEmpty() ){
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * latencies.size()) - 1;
+            return latencies.get(Math.max(0, index)) / 1_000_000d;
+        }
+    }
+}
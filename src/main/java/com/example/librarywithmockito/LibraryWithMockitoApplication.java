@@ -3,18 +3,25 @@ package com.example.librarywithmockito;
 import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LibraryWithMockitoApplication {
 
+    private static final int STARTUP_STEPS_CAPACITY = 4096;
+
     @Bean
     public ModelMapper modelMapper(){
         return new ModelMapper();
     }
 
     public static void main(String[] args) {
-        SpringApplication.run(LibraryWithMockitoApplication.class, args);
+        SpringApplication application = new SpringApplication(LibraryWithMockitoApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS_CAPACITY));
+        application.run(args);
     }
 
 }
@@ -2,7 +2,14 @@ package com.example.librarywithmockito.api.resource;
 
 import com.example.librarywithmockito.api.resource.exception.ApiErros;
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
+import com.example.librarywithmockito.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,9 +17,24 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    private final Map<ErrorCode, byte[]> templates = new EnumMap<>(ErrorCode.class);
+    private final Map<ErrorCode, ResponseEntity<byte[]>> responses = new EnumMap<>(ErrorCode.class);
+
+    public ApplicationControllerAdvice(ObjectMapper objectMapper) throws JsonProcessingException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        for (ErrorCode code : ErrorCode.values()) {
+            byte[] template = objectMapper.writeValueAsBytes(new ApiErros(code));
+            templates.put(code, template);
+            responses.put(code, new ResponseEntity<>(template, headers, code.getStatus()));
+        }
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -23,9 +45,26 @@ public class ApplicationControllerAdvice {
 
 
     @ExceptionHandler(BusinessException.class)
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
-    public ApiErros handleBusinessException(BusinessException ex){
-        return new ApiErros(ex);
+    public ResponseEntity<?> handleBusinessException(BusinessException ex){
+        ErrorCode code = ex.getErrorCode();
+        if( code == null ){
+            return ResponseEntity.badRequest().body(new ApiErros(ex));
+        }
+        return responses.get(code);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex){
+        return responses.get(ErrorCode.CONCURRENT_UPDATE);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<byte[]> handleTooManyRequestsException(TooManyRequestsException ex){
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(templates.get(ErrorCode.TOO_MANY_REQUESTS));
     }
 
     @ExceptionHandler(ResponseStatusException.class)
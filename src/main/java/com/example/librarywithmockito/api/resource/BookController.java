@@ -1,46 +1,104 @@
 package com.example.librarywithmockito.api.resource;
 
+import com.example.librarywithmockito.api.resource.dto.BookCopiesDTO;
 import com.example.librarywithmockito.api.resource.dto.BookDto;
+import com.example.librarywithmockito.api.resource.dto.BookLookupDTO;
+import com.example.librarywithmockito.api.resource.dto.BookLookupResultDTO;
 import com.example.librarywithmockito.api.resource.dto.LoanDto;
+import com.example.librarywithmockito.api.resource.dto.PageDTO;
+import com.example.librarywithmockito.api.resource.dto.PopularBooksDTO;
 import com.example.librarywithmockito.api.resource.exception.ApiErros;
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
 import com.example.librarywithmockito.model.Book;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.IdempotencyService;
 import com.example.librarywithmockito.service.LoanService;
+import com.example.librarywithmockito.service.PopularBooksService;
+import com.example.librarywithmockito.util.WindowedTopK;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final int MAX_POPULAR_BOOKS = 100;
+
     private BookService bookService;
     private ModelMapper mapper;
     private LoanService loanService;
+    private IdempotencyService idempotencyService;
+    private PopularBooksService popularBooksService;
+    private ClientKeyResolver clientKeyResolver;
 
-    public BookController(BookService bookService, ModelMapper mapper, LoanService loanService) {
+    public BookController(BookService bookService, ModelMapper mapper, LoanService loanService,
+                          IdempotencyService idempotencyService, PopularBooksService popularBooksService,
+                          ClientKeyResolver clientKeyResolver) {
         this.bookService = bookService;
         this.mapper = mapper;
         this.loanService = loanService;
+        this.idempotencyService = idempotencyService;
+        this.popularBooksService = popularBooksService;
+        this.clientKeyResolver = clientKeyResolver;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public BookDto create(@Valid @RequestBody BookDto dto){
-        Book entity = mapper.map(dto, Book.class);
-        entity = bookService.save(entity);
-        return mapper.map(entity, BookDto.class);
+    public BookDto create(@Valid @RequestBody BookDto dto,
+                          @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                          HttpServletRequest request){
+        return idempotencyService.execute("books", clientKeyResolver.resolve(request), idempotencyKey, BookDto.class, () -> {
+            Book entity = mapper.map(dto, Book.class);
+            entity = bookService.save(entity);
+            return mapper.map(entity, BookDto.class);
+        });
+    }
+
+    @GetMapping
+    public BookLookupResultDTO lookup(@RequestParam(value = "ids", required = false) List<Long> ids,
+                                      @RequestParam(value = "isbn", required = false) List<String> isbns){
+        ids = ids != null ? ids : List.of();
+        isbns = isbns != null ? isbns : List.of();
+        if( ids.size() > BookLookupDTO.MAX_KEYS || isbns.size() > BookLookupDTO.MAX_KEYS ){
+            throw BusinessException.of(ErrorCode.TOO_MANY_LOOKUP_KEYS);
+        }
+        return findBooks(ids, isbns);
+    }
+
+    @PostMapping("lookup")
+    public BookLookupResultDTO lookup(@Valid @RequestBody BookLookupDTO dto){
+        return findBooks(dto.getIds() != null ? dto.getIds() : List.of(),
+                dto.getIsbns() != null ? dto.getIsbns() : List.of());
+    }
+
+    private BookLookupResultDTO findBooks(List<Long> ids, List<String> isbns) {
+        List<Book> found = new ArrayList<>();
+        if( !ids.isEmpty() ){
+            found.addAll(bookService.getByIds(ids));
+        }
+        if( !isbns.isEmpty() ){
+            found.addAll(bookService.getByIsbns(isbns));
+        }
+        return BookLookupResultDTO.of(ids, isbns, found);
     }
 
     @GetMapping("{id}")
@@ -48,45 +106,70 @@ public class BookController {
         return bookService
                 .getById(id)
                 .map( book -> mapper.map(book, BookDto.class)  )
-                .orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND) );
+                .orElseThrow( () -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND) );
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id) throws IllegalAccessException {
-        var book = bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        var book = bookService.getById(id).orElseThrow(() -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND));
         bookService.delete(book);
     }
 
 
     @PutMapping("{id}")
     public BookDto update(@PathVariable Long id, BookDto dto){
-        return bookService.getById(id).map( book -> {
+        return bookService.update(id, book -> {
                 book.setAuthor(dto.getAuthor());
                 book.setTitle(dto.getTitle());
-                var bookUpdate = bookService.update(book);
-                return mapper.map(bookUpdate, BookDto.class);
-                }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                })
+                .map( bookUpdate -> mapper.map(bookUpdate, BookDto.class) )
+                .orElseThrow(() -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND));
     }
 
 
-    @GetMapping("{id}/loans")
-    public Page<LoanDto> loansByBook(@PathVariable Long id, Pageable pageable){
-        var book = bookService.getById(id).orElseThrow( () -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        Page<Loan> result = loanService.getLoansByBook(book, pageable);
-
-        var list = result.getContent()
-                                    .stream()
-                                    .map(loan -> {
-                                        var loanBook = loan.getBook();
-                                        var bookDto = mapper.map(loanBook, BookDto.class);
-                                        var loanDto = mapper.map(bookDto, LoanDto.class);
-                                        loanDto.setBook(bookDto);
-                                        return loanDto;
-                                    }).collect(Collectors.toList()) ;
-        return new PageImpl<LoanDto>(list, pageable, result.getTotalElements());
+    @PostMapping("{id}/copies")
+    public BookDto addCopies(@PathVariable Long id, @Valid @RequestBody BookCopiesDTO dto){
+        return loanService.addCopies(id, dto.getCount())
+                .map( book -> mapper.map(book, BookDto.class) )
+                .orElseThrow(() -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND));
+    }
+
+    @GetMapping("popular")
+    public PopularBooksDTO popular(@RequestParam(value = "window", defaultValue = "7d") String window,
+                                   @RequestParam(value = "limit", defaultValue = "10") int limit){
+        Duration duration = parseWindow(window);
+        if( duration.compareTo(popularBooksService.minWindow()) < 0 || duration.compareTo(popularBooksService.maxWindow()) > 0 ){
+            throw BusinessException.of(ErrorCode.INVALID_POPULARITY_WINDOW);
+        }
+        var snapshot = popularBooksService.getMostBorrowed(duration, Math.max(1, Math.min(limit, MAX_POPULAR_BOOKS)));
+        var ids = snapshot.getEntries().stream().map(WindowedTopK.Entry::getKey).collect(Collectors.toList());
+        Map<Long, Book> books = bookService.getByIds(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return PopularBooksDTO.of(window, snapshot, books);
+    }
 
+    private static Duration parseWindow(String window) {
+        try {
+            return DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException ex) {
+            throw BusinessException.of(ErrorCode.INVALID_POPULARITY_WINDOW);
+        }
+    }
 
+    @GetMapping("{id}/loans")
+    public PageDTO<LoanDto> loansByBook(@PathVariable Long id,
+                                        @RequestParam(value = "history", defaultValue = "false") boolean history,
+                                        @RequestParam(value = "expand", required = false) List<String> expand,
+                                        Pageable pageable){
+        var book = bookService.getById(id).orElseThrow( () -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND));
+        boolean expandBook = expand != null && expand.contains(LoanDto.EXPAND_BOOK);
+        if( history ){
+            Page<Loan> result = loanService.getLoansByBook(book, pageable, true);
+            return PageDTO.of(result, loan -> LoanDto.of(loan, expandBook));
+        }
+        Page<LoanSummary> result = loanService.getLoanSummariesByBook(book, pageable);
+        return PageDTO.of(result, summary -> LoanDto.of(summary, expandBook));
     }
 
 }
@@ -0,0 +1,55 @@
+package com.example.librarywithmockito.api.resource;
+
+import com.example.librarywithmockito.api.resource.dto.ChangeFeedDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * Incremental sync of books and loans: each response carries the changes after {@code since}
+ * and the {@code next} token to pass on the following call. Zero replays everything.
+ */
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private final ChangeStream changeStream;
+    private final Duration maxWait;
+    private final Duration streamTimeout;
+
+    public ChangeController(ChangeStream changeStream,
+                            @Value("${application.changes.max-wait:PT30S}") Duration maxWait,
+                            @Value("${application.changes.stream-timeout:PT5M}") Duration streamTimeout) {
+        this.changeStream = changeStream;
+        this.maxWait = maxWait;
+        this.streamTimeout = streamTimeout;
+    }
+
+    /**
+     * With {@code wait}, e.g. PT20S, an empty result is held back until a change commits or the
+     * wait (capped by application.changes.max-wait) is over.
+     */
+    @GetMapping
+    public DeferredResult<ChangeFeedDTO> changes(@RequestParam(value = "since", defaultValue = "0") long since,
+                                                 @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                                 @RequestParam(value = "wait", required = false) Duration wait) {
+        Duration capped = wait == null || wait.isNegative() ? Duration.ZERO
+                : wait.compareTo(maxWait) > 0 ? maxWait : wait;
+        return changeStream.poll(since, limit(limit), capped);
+    }
+
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(value = "since", defaultValue = "0") long since,
+                             @RequestParam(value = "limit", defaultValue = "100") int limit,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return changeStream.stream(lastEventId != null ? lastEventId : since, limit(limit), streamTimeout);
+    }
+
+    private static int limit(int limit) {
+        return Math.max(1, Math.min(limit, ChangeFeedDTO.MAX_LIMIT));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.librarywithmockito.api.resource;
+
+import com.example.librarywithmockito.api.resource.dto.ChangeFeedDTO;
+import com.example.librarywithmockito.service.ChangeFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds long-poll requests and SSE streams waiting for changes. A single thread reads the log for
+ * them: woken when a local transaction commits changes, and on a timer for changes committed by
+ * other instances or held back by the settle window. When nobody is behind the latest change the
+ * wake-up costs one max(id) lookup.
+ * <p>
+ * Streams are written from their own queue of up to {@code application.changes.stream-buffer}
+ * pages, drained on a separate sender pool, so a slow client never holds up the reader or the
+ * other clients. A stream whose queue is full is closed; the client resumes from its
+ * Last-Event-ID.
+ */
+@Slf4j
+@Component
+public class ChangeStream {
+
+    private final ChangeFeedService changeFeed;
+    private final Queue<Subscriber> subscribers = new ConcurrentLinkedQueue<>();
+    private final ExecutorService publisher;
+    private final ExecutorService sender;
+    private final int streamBuffer;
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    public ChangeStream(ChangeFeedService changeFeed,
+                        @Value("${application.changes.stream-buffer:16}") int streamBuffer) {
+        this.changeFeed = changeFeed;
+        this.streamBuffer = streamBuffer;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("change-stream-");
+        threadFactory.setDaemon(true);
+        this.publisher = Executors.newSingleThreadExecutor(threadFactory);
+        CustomizableThreadFactory senderThreadFactory = new CustomizableThreadFactory("change-stream-send-");
+        senderThreadFactory.setDaemon(true);
+        this.sender = Executors.newCachedThreadPool(senderThreadFactory);
+        changeFeed.onCommit(this::wakeUp);
+    }
+
+    /**
+     * Answers at once when changes are available, otherwise when the first one commits or with an
+     * empty page once {@code wait} has passed.
+     */
+    public DeferredResult<ChangeFeedDTO> poll(long since, int limit, Duration wait) {
+        ChangeFeedDTO page = ChangeFeedDTO.of(changeFeed.since(since, limit));
+        DeferredResult<ChangeFeedDTO> result = new DeferredResult<>(wait.toMillis(), () -> ChangeFeedDTO.empty(since));
+        if( !page.getChanges().isEmpty() || wait.isZero() ){
+            result.setResult(page);
+            return result;
+        }
+        Subscriber subscriber = new LongPoll(since, limit, result);
+        subscribers.add(subscriber);
+        result.onCompletion(() -> subscribers.remove(subscriber));
+        wakeUp();
+        return result;
+    }
+
+    /**
+     * Sends every page as a {@code changes} event whose id is the next token, so a client
+     * reconnecting with Last-Event-ID resumes where it stopped.
+     */
+    public SseEmitter stream(long since, int limit, Duration timeout) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Stream(since, limit, emitter, streamBuffer);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        wakeUp();
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${application.changes.poll-interval:1000}")
+    public void wakeUp() {
+        if( wakeUpPending.compareAndSet(false, true) ){
+            publisher.execute(() -> {
+                wakeUpPending.set(false);
+                publish();
+            });
+        }
+    }
+
+    private void publish() {
+        if( subscribers.isEmpty() ){
+            return;
+        }
+        try {
+            long latest = changeFeed.latest();
+            for (Subscriber subscriber : subscribers) {
+                while( subscriber.cursor < latest ){
+                    ChangeFeedDTO page = ChangeFeedDTO.of(changeFeed.since(subscriber.cursor, subscriber.limit));
+                    if( page.getNext() == subscriber.cursor || !subscriber.deliver(page) ){
+                        break;
+                    }
+                    subscriber.cursor = page.getNext();
+                }
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not publish changes, retrying on the next wake-up", ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publisher.shutdownNow();
+        sender.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private abstract static class Subscriber {
+
+        long cursor;
+        final int limit;
+
+        Subscriber(long cursor, int limit) {
+            this.cursor = cursor;
+            this.limit = limit;
+        }
+
+        /**
+         * Returns whether the subscriber wants further pages.
+         */
+        abstract boolean deliver(ChangeFeedDTO page);
+
+        abstract void close();
+    }
+
+    private class LongPoll extends Subscriber {
+
+        private final DeferredResult<ChangeFeedDTO> result;
+
+        LongPoll(long cursor, int limit, DeferredResult<ChangeFeedDTO> result) {
+            super(cursor, limit);
+            this.result = result;
+        }
+
+        @Override
+        boolean deliver(ChangeFeedDTO page) {
+            result.setResult(page);
+            subscribers.remove(this);
+            return false;
+        }
+
+        @Override
+        void close() {
+            result.setResult(ChangeFeedDTO.empty(cursor));
+        }
+    }
+
+    private class Stream extends Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<ChangeFeedDTO> pages;
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        Stream(long cursor, int limit, SseEmitter emitter, int buffer) {
+            super(cursor, limit);
+            this.emitter = emitter;
+            this.pages = new ArrayBlockingQueue<>(buffer);
+        }
+
+        /**
+         * Only queues the page; the sender pool writes it.
+         */
+        @Override
+        boolean deliver(ChangeFeedDTO page) {
+            if( !pages.offer(page) ){
+                log.debug("Closing a change stream that fell {} pages behind", pages.size());
+                subscribers.remove(this);
+                emitter.complete();
+                return false;
+            }
+            drain();
+            return true;
+        }
+
+        /**
+         * At most one drain per stream runs at a time, which keeps the pages in order.
+         */
+        private void drain() {
+            if( !sending.compareAndSet(false, true) ){
+                return;
+            }
+            sender.execute(() -> {
+                try {
+                    ChangeFeedDTO page;
+                    while( (page = pages.poll()) != null ){
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(page.getNext()))
+                                .name("changes")
+                                .data(page));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    subscribers.remove(this);
+                    pages.clear();
+                    emitter.completeWithError(ex);
+                } finally {
+                    sending.set(false);
+                }
+                if( !pages.isEmpty() && subscribers.contains(this) ){
+                    drain();
+                }
+            });
+        }
+
+        @Override
+        void close() {
+            emitter.complete();
+        }
+    }
+}
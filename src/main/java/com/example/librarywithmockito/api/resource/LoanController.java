@@ -1,24 +1,34 @@
 package com.example.librarywithmockito.api.resource;
 
-import com.example.librarywithmockito.api.resource.dto.BookDto;
+import com.example.librarywithmockito.api.resource.dto.CheckoutDTO;
+import com.example.librarywithmockito.api.resource.dto.CheckoutResultDTO;
+import com.example.librarywithmockito.api.resource.dto.HoldDTO;
 import com.example.librarywithmockito.api.resource.dto.LoanDto;
 import com.example.librarywithmockito.api.resource.dto.LoanFilterDTO;
+import com.example.librarywithmockito.api.resource.dto.PageDTO;
 import com.example.librarywithmockito.api.resource.dto.ReturnedLoanDTO;
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
+import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.Customer;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.HoldService;
+import com.example.librarywithmockito.service.IdempotencyService;
 import com.example.librarywithmockito.service.LoanService;
-import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/loans")
@@ -26,56 +36,101 @@ public class LoanController {
 
     private final LoanService service;
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final IdempotencyService idempotencyService;
+    private final HoldService holdService;
+    private final ClientKeyResolver clientKeyResolver;
 
-    public LoanController(LoanService service, BookService bookService, ModelMapper modelMapper) {
+    public LoanController(LoanService service, BookService bookService, IdempotencyService idempotencyService,
+                          HoldService holdService, ClientKeyResolver clientKeyResolver) {
         this.service = service;
         this.bookService = bookService;
-        this.modelMapper = modelMapper;
+        this.idempotencyService = idempotencyService;
+        this.holdService = holdService;
+        this.clientKeyResolver = clientKeyResolver;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public Long create(@RequestBody LoanDto dto) {
-        Book book = bookService
-                .getBookByIsbn(dto.getIsbn())
-                .orElseThrow(() ->
-                        new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn"));
-        Loan entity = Loan.builder()
-                .book(book)
-                .customer(dto.getCustomer())
-                .loanDate(LocalDate.now())
-                .build();
+    public Long create(@RequestBody LoanDto dto,
+                       @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                       HttpServletRequest request) {
+        return idempotencyService.execute("loans", clientKeyResolver.resolve(request), idempotencyKey, Long.class, () -> {
+            Book book = bookService
+                    .getBookByIsbn(dto.getIsbn())
+                    .orElseThrow(() ->
+                            BusinessException.of(ErrorCode.BOOK_NOT_FOUND_FOR_ISBN));
+            Loan entity = Loan.builder()
+                    .book(book)
+                    .customer(Customer.of(dto.getCustomer(), dto.getEmail()))
+                    .loanDate(LocalDate.now())
+                    .build();
+
+            entity = service.save(entity);
+            return entity.getId();
+        });
+    }
 
-        entity = service.save(entity);
-        return entity.getId();
+    /**
+     * 201 when every book was loaned, 200 when only some were (partial checkout) and 409 when
+     * none was; the body carries the outcome per ISBN either way. A book kept for customers
+     * waiting on hold comes back {@code ON_HOLD}, not {@code ALREADY_LOANED}.
+     */
+    @PostMapping("checkout")
+    public ResponseEntity<CheckoutResultDTO> checkout(@Valid @RequestBody CheckoutDTO dto,
+                                                      @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                      HttpServletRequest request) {
+        CheckoutResultDTO result = idempotencyService.execute("loans-checkout", clientKeyResolver.resolve(request), idempotencyKey, CheckoutResultDTO.class,
+                () -> CheckoutResultDTO.of(service.checkout(dto.getCustomer(), dto.getEmail(), dto.getIsbns(), dto.isAllowPartial())));
+        HttpStatus status = result.isComplete() ? HttpStatus.CREATED
+                : result.getLoaned() > 0 ? HttpStatus.OK
+                : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(result);
     }
 
     @PatchMapping("{id}")
     public void returnBook(
             @PathVariable Long id,
             @RequestBody ReturnedLoanDTO dto) {
-        Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(dto.getReturned());
-        service.update(loan);
+        service.update(id, loan -> loan.setReturned(dto.getReturned()))
+                .orElseThrow(() -> BusinessException.of(ErrorCode.LOAN_NOT_FOUND));
     }
 
-    @GetMapping
-    public Page<LoanDto> find(LoanFilterDTO dto, Pageable pageRequest) {
-        Page<Loan> result = service.find(dto, pageRequest);
-        List<LoanDto> loans = result
-                .getContent()
-                .stream()
-                .map(entity -> {
+    /**
+     * The hold comes back FULFILLED, with its loan, when a copy was free; otherwise WAITING with
+     * its place in the queue.
+     */
+    @PostMapping("holds")
+    @ResponseStatus(HttpStatus.CREATED)
+    public HoldDTO hold(@Valid @RequestBody HoldDTO dto) {
+        Book book = bookService
+                .getBookByIsbn(dto.getIsbn())
+                .orElseThrow(() -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND_FOR_ISBN));
+        BookHold hold = service.hold(book, dto.getCustomer(), dto.getEmail());
+        return HoldDTO.of(hold, holdService.position(hold));
+    }
+
+    @GetMapping("holds/{id}")
+    public HoldDTO getHold(@PathVariable Long id) {
+        BookHold hold = holdService.getById(id)
+                .orElseThrow(() -> BusinessException.of(ErrorCode.HOLD_NOT_FOUND));
+        return HoldDTO.of(hold, holdService.position(hold));
+    }
 
-                    Book book = entity.getBook();
-                    BookDto bookDTO = modelMapper.map(book, BookDto.class);
-                    LoanDto loanDTO = modelMapper.map(entity, LoanDto.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
+    @DeleteMapping("holds/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelHold(@PathVariable Long id) {
+        if( !holdService.cancel(id) ){
+            throw BusinessException.of(ErrorCode.HOLD_NOT_FOUND);
+        }
+    }
 
-                }).collect(Collectors.toList());
-        return new PageImpl<LoanDto>(loans, pageRequest, result.getTotalElements());
+    @GetMapping
+    public PageDTO<LoanDto> find(LoanFilterDTO dto,
+                                 @RequestParam(value = "expand", required = false) List<String> expand,
+                                 Pageable pageRequest) {
+        boolean expandBook = expand != null && expand.contains(LoanDto.EXPAND_BOOK);
+        Page<LoanSummary> result = service.findSummaries(dto, pageRequest);
+        return PageDTO.of(result, summary -> LoanDto.of(summary, expandBook));
     }
 
 }
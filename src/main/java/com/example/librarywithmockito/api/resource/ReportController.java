@@ -0,0 +1,40 @@
+package com.example.librarywithmockito.api.resource;
+
+import com.example.librarywithmockito.api.resource.dto.PageDTO;
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.BookPopularity;
+import com.example.librarywithmockito.model.CustomerLoanHistory;
+import com.example.librarywithmockito.service.LoanReportService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private static final int MAX_POPULAR_BOOKS = 100;
+
+    private LoanReportService reportService;
+
+    public ReportController(LoanReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @GetMapping("customers/{customer}/loans")
+    public PageDTO<CustomerLoanHistory> customerHistory(@PathVariable String customer, Pageable pageable) {
+        return PageDTO.of(reportService.getCustomerHistory(customer, pageable), Function.identity());
+    }
+
+    @GetMapping("books/popular")
+    public List<BookPopularity> popularBooks(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return reportService.getMostPopularBooks(Math.max(1, Math.min(limit, MAX_POPULAR_BOOKS)));
+    }
+
+    @GetMapping("loans/late")
+    public PageDTO<ActiveLoan> lateLoans(Pageable pageable) {
+        return PageDTO.of(reportService.getLateLoans(pageable), Function.identity());
+    }
+}
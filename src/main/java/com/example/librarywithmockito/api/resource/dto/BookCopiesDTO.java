@@ -0,0 +1,19 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookCopiesDTO {
+
+    /** Copies to add, or to remove when negative. */
+    @NotNull
+    private Integer count;
+}
@@ -1,12 +1,10 @@
 package com.example.librarywithmockito.api.resource.dto;
 
-import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.Book;
 import lombok.*;
 
-import javax.persistence.FetchType;
-import javax.persistence.OneToMany;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
-import java.util.List;
 
 @Getter
 @Setter
@@ -22,8 +20,18 @@ public class BookDto {
     private String author;
     @NotEmpty
     private String isbn;
+    @Min(1)
+    private Integer copies;
+    private Integer availableCopies;
 
-    @OneToMany( mappedBy = "book", fetch = FetchType.LAZY)
-    private List<Loan> loans;
-
+    public static BookDto of(Book book) {
+        return BookDto.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .copies(book.getCopies())
+                .availableCopies(book.getAvailableCopies())
+                .build();
+    }
 }
@@ -0,0 +1,23 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupDTO {
+
+    public static final int MAX_KEYS = 1000;
+
+    @Size(max = MAX_KEYS)
+    private List<Long> ids;
+    @Size(max = MAX_KEYS)
+    private List<String> isbns;
+}
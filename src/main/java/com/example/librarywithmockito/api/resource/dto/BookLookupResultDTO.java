@@ -0,0 +1,63 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.Book;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupResultDTO {
+
+    private List<BookDto> books;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<Long> missingIds;
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<String> missingIsbns;
+
+    /**
+     * Lists the books in the order they were asked for, ids first, each book once.
+     */
+    public static BookLookupResultDTO of(Collection<Long> ids, Collection<String> isbns, Collection<Book> found) {
+        Map<Long, Book> byId = new HashMap<>();
+        Map<String, Book> byIsbn = new HashMap<>();
+        for( Book book : found ){
+            byId.put(book.getId(), book);
+            byIsbn.put(book.getIsbn(), book);
+        }
+        List<BookDto> books = new ArrayList<>(found.size());
+        Set<Long> added = new HashSet<>();
+        List<Long> missingIds = new ArrayList<>();
+        for( Long id : new LinkedHashSet<>(ids) ){
+            Book book = byId.get(id);
+            if( book == null ){
+                missingIds.add(id);
+            } else if( added.add(book.getId()) ){
+                books.add(BookDto.of(book));
+            }
+        }
+        List<String> missingIsbns = new ArrayList<>();
+        for( String isbn : new LinkedHashSet<>(isbns) ){
+            Book book = byIsbn.get(isbn);
+            if( book == null ){
+                missingIsbns.add(isbn);
+            } else if( added.add(book.getId()) ){
+                books.add(BookDto.of(book));
+            }
+        }
+        return new BookLookupResultDTO(books, missingIds, missingIsbns);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChangeDTO {
+
+    private long seq;
+    private ChangeEntity type;
+    private Long id;
+    private boolean deleted;
+    private BookDto book;
+    private LoanDto loan;
+
+}
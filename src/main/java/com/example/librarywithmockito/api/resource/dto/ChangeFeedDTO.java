@@ -0,0 +1,51 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.ChangeBatch;
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.example.librarywithmockito.model.ChangeRecord;
+import com.example.librarywithmockito.model.Loan;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@code next} is the token for the following request; it equals {@code since} when nothing
+ * new was committed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDTO {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private List<ChangeDTO> changes;
+    private long next;
+
+    public static ChangeFeedDTO empty(long since) {
+        return new ChangeFeedDTO(List.of(), since);
+    }
+
+    public static ChangeFeedDTO of(ChangeBatch batch) {
+        List<ChangeDTO> changes = new ArrayList<>(batch.getChanges().size());
+        for (ChangeRecord change : batch.getChanges()) {
+            ChangeDTO.ChangeDTOBuilder dto = ChangeDTO.builder()
+                    .seq(change.getId())
+                    .type(change.getEntity())
+                    .id(change.getEntityId());
+            if( change.getEntity() == ChangeEntity.BOOK ){
+                Book book = batch.getBooks().get(change.getEntityId());
+                dto.deleted(book == null).book(book != null ? BookDto.of(book) : null);
+            } else {
+                Loan loan = batch.getLoans().get(change.getEntityId());
+                dto.deleted(loan == null).loan(loan != null ? LoanDto.of(loan, false) : null);
+            }
+            changes.add(dto.build());
+        }
+        return new ChangeFeedDTO(changes, batch.getNext());
+    }
+}
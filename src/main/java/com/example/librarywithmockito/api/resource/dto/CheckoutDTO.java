@@ -0,0 +1,28 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutDTO {
+
+    public static final int MAX_BOOKS = 50;
+
+    @NotEmpty
+    private String customer;
+    @NotEmpty
+    private String email;
+    @NotEmpty
+    @Size(max = MAX_BOOKS)
+    private List<String> isbns;
+    private boolean allowPartial;
+}
@@ -0,0 +1,54 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.CheckoutItem;
+import com.example.librarywithmockito.model.CheckoutStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutResultDTO {
+
+    private int loaned;
+    private boolean complete;
+    private List<CheckoutItemDTO> items;
+
+    public static CheckoutResultDTO of(List<CheckoutItem> items) {
+        int loaned = (int) items.stream().filter(item -> item.getStatus() == CheckoutStatus.LOANED).count();
+        boolean complete = items.stream().allMatch(item ->
+                item.getStatus() == CheckoutStatus.LOANED || item.getStatus() == CheckoutStatus.DUPLICATED);
+        return CheckoutResultDTO.builder()
+                .loaned(loaned)
+                .complete(complete)
+                .items(items.stream().map(CheckoutItemDTO::of).collect(Collectors.toList()))
+                .build();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class CheckoutItemDTO {
+
+        private String isbn;
+        private CheckoutStatus status;
+        private Long loanId;
+
+        static CheckoutItemDTO of(CheckoutItem item) {
+            return CheckoutItemDTO.builder()
+                    .isbn(item.getIsbn())
+                    .status(item.getStatus())
+                    .loanId(item.getLoan() != null ? item.getLoan().getId() : null)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.HoldStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotEmpty;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HoldDTO {
+
+    private Long id;
+    @NotEmpty
+    private String isbn;
+    @NotEmpty
+    private String customer;
+    @NotEmpty
+    private String email;
+    private HoldStatus status;
+    private Long position;
+    private Long loanId;
+
+    public static HoldDTO of(BookHold hold, long position) {
+        return HoldDTO.builder()
+                .id(hold.getId())
+                .isbn(hold.getBook().getIsbn())
+                .customer(hold.getCustomer().getName())
+                .email(hold.getCustomer().getEmail())
+                .status(hold.getStatus())
+                .position(hold.getStatus() == HoldStatus.WAITING ? position : null)
+                .loanId(hold.getLoanId())
+                .build();
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.librarywithmockito.api.resource.dto;
 
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,8 +14,11 @@ import javax.validation.constraints.NotEmpty;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class LoanDto {
 
+    public static final String EXPAND_BOOK = "book";
+
     private Long id;
     @NotEmpty
     private String isbn;
@@ -22,5 +28,29 @@ public class LoanDto {
     private String email;
     private BookDto book;
 
+    public static LoanDto of(Loan loan, boolean expandBook) {
+        return LoanDto.builder()
+                .id(loan.getId())
+                .isbn(loan.getBook() != null ? loan.getBook().getIsbn() : null)
+                .customer(loan.getCustomerName())
+                .email(loan.getCustomerEmail())
+                .book(expandBook && loan.getBook() != null ? BookDto.of(loan.getBook()) : null)
+                .build();
+    }
+
+    public static LoanDto of(LoanSummary summary, boolean expandBook) {
+        return LoanDto.builder()
+                .id(summary.getId())
+                .isbn(summary.getIsbn())
+                .customer(summary.getCustomer())
+                .email(summary.getEmail())
+                .book(expandBook ? BookDto.builder()
+                        .id(summary.getBookId())
+                        .title(summary.getBookTitle())
+                        .author(summary.getBookAuthor())
+                        .isbn(summary.getIsbn())
+                        .build() : null)
+                .build();
+    }
 
 }
@@ -0,0 +1,60 @@
+package com.example.librarywithmockito.api.resource.dto;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.util.WindowedTopK;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Counts are estimates that never undercount; each may exceed the true count by up to
+ * {@code maxOvercount} ({@code epsilon * totalLoans}) with probability {@code 1 - confidence}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PopularBooksDTO {
+
+    private String window;
+    private long totalLoans;
+    private double epsilon;
+    private double confidence;
+    private long maxOvercount;
+    private List<PopularBookDTO> books;
+
+    public static PopularBooksDTO of(String window, WindowedTopK.Snapshot snapshot, Map<Long, Book> books) {
+        return PopularBooksDTO.builder()
+                .window(window)
+                .totalLoans(snapshot.getTotal())
+                .epsilon(snapshot.getEpsilon())
+                .confidence(1 - snapshot.getDelta())
+                .maxOvercount(snapshot.getMaxOvercount())
+                .books(snapshot.getEntries().stream()
+                        .map(entry -> PopularBookDTO.of(entry, books.get(entry.getKey())))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PopularBookDTO {
+
+        private BookDto book;
+        private long estimatedLoans;
+
+        static PopularBookDTO of(WindowedTopK.Entry entry, Book book) {
+            return PopularBookDTO.builder()
+                    .book(book != null ? BookDto.of(book) : BookDto.builder().id(entry.getKey()).build())
+                    .estimatedLoans(entry.getCount())
+                    .build();
+        }
+    }
+}
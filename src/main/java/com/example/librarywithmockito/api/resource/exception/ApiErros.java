@@ -1,32 +1,46 @@
 package com.example.librarywithmockito.api.resource.exception;
 
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ApiErros {
 
     private List<String> erros;
+    private String code;
 
     public ApiErros(BindingResult bindingResult) {
-        this.erros = new ArrayList<>();
+        this.erros = new ArrayList<>(bindingResult.getErrorCount());
 
         bindingResult.getAllErrors().forEach( error -> this.erros.add(error.getDefaultMessage()));
     }
 
     public ApiErros(BusinessException ex) {
-        this.erros = Arrays.asList(ex.getMessage());
+        this.erros = Collections.singletonList(ex.getMessage());
+        this.code = ex.getErrorCode() != null ? ex.getErrorCode().name() : null;
+    }
+
+    public ApiErros(ErrorCode errorCode) {
+        this.erros = Collections.singletonList(errorCode.getMessage());
+        this.code = errorCode.name();
     }
 
     public ApiErros(ResponseStatusException ex) {
-        this.erros = Arrays.asList(ex.getReason());
+        this.erros = Collections.singletonList(ex.getReason());
     }
 
     public List<String> getErros() {
         return erros;
     }
+
+    public String getCode() {
+        return code;
+    }
 }
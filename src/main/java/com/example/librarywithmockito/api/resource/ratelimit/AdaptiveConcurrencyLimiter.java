@@ -0,0 +1,103 @@
+package com.example.librarywithmockito.api.resource.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AIMD concurrency limit: grows by one while latency stays close to its baseline and shrinks
+ * multiplicatively once requests start queueing (for connections, usually).
+ * <p>
+ * The limit is shared, since the groups compete for the same pool, but each endpoint group
+ * keeps its own baseline: a slow write is compared with other writes, never with the fastest
+ * read. The baseline is the minimum over the current and the previous window of samples, so it
+ * follows a database that got slower for good without ever resting on a single sample.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double QUEUEING_TOLERANCE = 2.0;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int DEFAULT_WINDOW_SAMPLES = 500;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSamples;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentMap<String, Baseline> baselines = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_WINDOW_SAMPLES);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int windowSamples) {
+        if( windowSamples < 1 ){
+            throw new IllegalArgumentException("Window must hold at least one sample");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSamples = windowSamples;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if( current >= limit.get() ){
+                return false;
+            }
+            if( inFlight.compareAndSet(current, current + 1) ){
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back without a latency sample, for requests rejected before they ran.
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public void release(String group, long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        long baselineNanos = baselines.computeIfAbsent(group, key -> new Baseline(windowSamples)).record(rttNanos);
+
+        if( rttNanos > baselineNanos * QUEUEING_TOLERANCE ){
+            limit.updateAndGet(value -> Math.max(minLimit, (int) (value * BACKOFF_RATIO)));
+        } else if( current * 2 >= limit.get() ){
+            limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private static final class Baseline {
+
+        private final int windowSamples;
+        private long previousMin = Long.MAX_VALUE;
+        private long currentMin = Long.MAX_VALUE;
+        private int samples;
+
+        Baseline(int windowSamples) {
+            this.windowSamples = windowSamples;
+        }
+
+        synchronized long record(long rttNanos) {
+            currentMin = Math.min(currentMin, rttNanos);
+            long baseline = Math.min(previousMin, currentMin);
+            if( ++samples == windowSamples ){
+                previousMin = currentMin;
+                currentMin = Long.MAX_VALUE;
+                samples = 0;
+            }
+            return baseline;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.librarywithmockito.api.resource.ratelimit;
+
+import javax.servlet.http.HttpServletRequest;
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Names the client behind a request for per-client state (rate limits, read-your-writes).
+ * <p>
+ * An authenticated principal wins. {@code X-Client-Id} is only honoured from the addresses in
+ * {@code application.clients.trusted-callers}, since anyone else could send a different id per
+ * request. Otherwise the remote address is used; behind a proxy or load balancer it is the
+ * forwarded client address once {@code server.forward-headers-strategy} is set.
+ */
+public class ClientKeyResolver {
+
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final Set<String> trustedCallers;
+
+    public ClientKeyResolver(Set<String> trustedCallers) {
+        this.trustedCallers = Set.copyOf(trustedCallers);
+    }
+
+    public String resolve(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if( principal != null ){
+            return "user:" + principal.getName();
+        }
+        String address = request.getRemoteAddr();
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        if( clientId != null && !clientId.isBlank() && trustedCallers.contains(address) ){
+            return "client:" + clientId;
+        }
+        return "addr:" + address;
+    }
+}
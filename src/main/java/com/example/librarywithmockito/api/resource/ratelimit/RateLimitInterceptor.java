@@ -0,0 +1,113 @@
+package com.example.librarywithmockito.api.resource.ratelimit;
+
+import com.example.librarywithmockito.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for the api controllers: a token bucket per client and endpoint group
+ * (controller plus read or write) and, for the groups that hold a database connection, an
+ * adaptive limit on the requests in flight. Cached reads never count against that limit.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_AT = RateLimitInterceptor.class.getName() + ".admittedAt";
+    private static final String GROUP = RateLimitInterceptor.class.getName() + ".group";
+    private static final String METRIC = "library.ratelimit.requests";
+
+    private final TokenBucketRateLimiter readLimiter;
+    private final TokenBucketRateLimiter writeLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Set<String> concurrencyLimitedGroups;
+    private final ClientKeyResolver clientKeyResolver;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(TokenBucketRateLimiter readLimiter,
+                                TokenBucketRateLimiter writeLimiter,
+                                AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                Set<String> concurrencyLimitedGroups,
+                                ClientKeyResolver clientKeyResolver,
+                                MeterRegistry meterRegistry) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.concurrencyLimitedGroups = Set.copyOf(concurrencyLimitedGroups);
+        this.clientKeyResolver = clientKeyResolver;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("library.ratelimit.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("library.ratelimit.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if( !(handler instanceof HandlerMethod) ){
+            return true;
+        }
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        String group = groupOf((HandlerMethod) handler, read);
+
+        // the slot is taken first and handed back on a rate rejection, so a request turned away
+        // for concurrency does not also spend one of the client's tokens
+        boolean limited = concurrencyLimitedGroups.contains(group);
+        if( limited && !concurrencyLimiter.tryAcquire() ){
+            counter(group, "rejected", "concurrency").increment();
+            throw new TooManyRequestsException(1);
+        }
+        long waitNanos = (read ? readLimiter : writeLimiter).tryAcquire(clientKeyResolver.resolve(request) + '|' + group);
+        if( waitNanos > 0 ){
+            if( limited ){
+                concurrencyLimiter.cancel();
+            }
+            counter(group, "rejected", "rate").increment();
+            throw new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L)));
+        }
+        counter(group, "admitted", "none").increment();
+        if( limited ){
+            request.setAttribute(ADMITTED_AT, System.nanoTime());
+            request.setAttribute(GROUP, group);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if( admittedAt != null ){
+            concurrencyLimiter.release((String) request.getAttribute(GROUP), System.nanoTime() - (Long) admittedAt);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${application.ratelimit.evict-interval:PT1M}")
+    public void evictIdleBuckets() {
+        readLimiter.evictIdle();
+        writeLimiter.evictIdle();
+    }
+
+    private String groupOf(HandlerMethod handler, boolean read) {
+        String controller = handler.getBeanType().getSimpleName().replace("Controller", "").toLowerCase();
+        return controller + (read ? ".read" : ".write");
+    }
+
+    private Counter counter(String group, String outcome, String reason) {
+        return counters.computeIfAbsent(group + outcome + reason, key -> Counter.builder(METRIC)
+                .tag("group", group)
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.librarywithmockito.api.resource.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket expressed as the generic cell rate algorithm: each key only keeps the
+ * theoretical arrival time of its next request in an {@link AtomicLong}, updated with CAS,
+ * so admission is lock-free and allocation-free once the key exists.
+ */
+public class TokenBucketRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+        if( permitsPerSecond <= 0 || burst < 1 ){
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.emissionIntervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * burst;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return zero when the request is admitted, otherwise how long to wait, in nanoseconds.
+     */
+    public long tryAcquire(String key) {
+        AtomicLong theoreticalArrival = buckets.get(key);
+        if( theoreticalArrival == null ){
+            theoreticalArrival = buckets.computeIfAbsent(key, k -> new AtomicLong(nanoClock.getAsLong()));
+        }
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + emissionIntervalNanos;
+            long excess = next - now - burstToleranceNanos;
+            if( excess > 0 ){
+                return excess;
+            }
+            if( theoreticalArrival.compareAndSet(current, next) ){
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Drops the keys whose bucket is full again; they behave exactly like unseen keys.
+     */
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(theoreticalArrival -> theoreticalArrival.get() <= now);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.librarywithmockito.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the last result of a background check instead of running the delegate on the calling
+ * thread. A result older than {@code maxStaleness} is reported as UNKNOWN, since a check that
+ * stopped completing says nothing about the current state. The readiness group ranks UNKNOWN
+ * above UP and maps it to 503, so a stale check takes the instance out of rotation.
+ */
+public class CachedHealthIndicator implements HealthIndicator {
+
+    private final HealthIndicator delegate;
+    private final Duration maxStaleness;
+    private final Clock clock;
+
+    private volatile Health lastHealth;
+    private volatile Instant checkedAt;
+
+    public CachedHealthIndicator(HealthIndicator delegate, Duration maxStaleness) {
+        this(delegate, maxStaleness, Clock.systemUTC());
+    }
+
+    CachedHealthIndicator(HealthIndicator delegate, Duration maxStaleness, Clock clock) {
+        this.delegate = delegate;
+        this.maxStaleness = maxStaleness;
+        this.clock = clock;
+    }
+
+    public CachedHealthIndicator scheduleOn(ScheduledExecutorService executor, Duration interval) {
+        executor.scheduleWithFixedDelay(this::refresh, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    public void refresh() {
+        Health health;
+        try {
+            health = delegate.getHealth(true);
+        } catch (RuntimeException ex) {
+            health = Health.down(ex).build();
+        }
+        lastHealth = health;
+        checkedAt = clock.instant();
+    }
+
+    @Override
+    public Health health() {
+        Health health = lastHealth;
+        Instant at = checkedAt;
+        if( health == null ){
+            return Health.unknown().withDetail("stale", true).build();
+        }
+        Duration age = Duration.between(at, clock.instant());
+        boolean stale = age.compareTo(maxStaleness) > 0;
+        return Health.status(stale ? Status.UNKNOWN : health.getStatus())
+                .withDetails(health.getDetails())
+                .withDetail("checkedAt", at.toString())
+                .withDetail("ageMillis", age.toMillis())
+                .withDetail("stale", stale)
+                .build();
+    }
+}
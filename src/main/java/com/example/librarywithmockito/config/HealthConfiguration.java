@@ -0,0 +1,87 @@
+package com.example.librarywithmockito.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.CompositeHealthContributor;
+import org.springframework.boot.actuate.health.HealthContributor;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.jdbc.DataSourceHealthIndicator;
+import org.springframework.boot.actuate.mail.MailHealthIndicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Replaces the auto-configured {@code db} and {@code mail} health contributors, which run their
+ * checks on every {@code /actuator/health} call, with cached ones refreshed in the background.
+ * The bean names are what switch the auto-configured ones off.
+ */
+@Configuration
+public class HealthConfiguration {
+
+    private final Duration refreshInterval;
+    private final Duration maxStaleness;
+
+    public HealthConfiguration(@Value("${application.health.refresh-interval:PT15S}") Duration refreshInterval,
+                               @Value("${application.health.max-staleness:PT1M}") Duration maxStaleness) {
+        this.refreshInterval = refreshInterval;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * Each check is scheduled with a fixed delay, so a hanging one holds at most one thread and
+     * the others keep refreshing.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService healthCheckExecutor(@Value("${application.health.threads:2}") int threads) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("health-check-");
+        threadFactory.setDaemon(true);
+        return Executors.newScheduledThreadPool(threads, threadFactory);
+    }
+
+    @Bean
+    @Lazy(false)
+    public HealthContributor dbHealthContributor(Map<String, DataSource> dataSources,
+                                                 ScheduledExecutorService healthCheckExecutor) {
+        Map<String, CachedHealthIndicator> indicators = new LinkedHashMap<>();
+        dataSources.forEach((name, dataSource) -> {
+            if( !(dataSource instanceof AbstractRoutingDataSource) && !(dataSource instanceof DelegatingDataSource) ){
+                indicators.put(name, cached(new DataSourceHealthIndicator(dataSource), healthCheckExecutor));
+            }
+        });
+        return contributor(indicators);
+    }
+
+    @Bean
+    @Lazy(false)
+    public HealthContributor mailHealthContributor(ObjectProvider<Map<String, JavaMailSenderImpl>> mailSenders,
+                                                   ScheduledExecutorService healthCheckExecutor) {
+        Map<String, CachedHealthIndicator> indicators = new LinkedHashMap<>();
+        mailSenders.getIfAvailable(Collections::emptyMap).forEach((name, mailSender) ->
+                indicators.put(name, cached(new MailHealthIndicator(mailSender), healthCheckExecutor)));
+        return contributor(indicators);
+    }
+
+    private CachedHealthIndicator cached(HealthIndicator indicator, ScheduledExecutorService executor) {
+        return new CachedHealthIndicator(indicator, maxStaleness).scheduleOn(executor, refreshInterval);
+    }
+
+    private static HealthContributor contributor(Map<String, CachedHealthIndicator> indicators) {
+        if( indicators.size() == 1 ){
+            return indicators.values().iterator().next();
+        }
+        return CompositeHealthContributor.fromMap(indicators);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.librarywithmockito.config;
+
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
+import com.example.librarywithmockito.repository.routing.ReadYourWritesFilter;
+import com.example.librarywithmockito.repository.routing.ReadYourWritesTracker;
+import com.example.librarywithmockito.repository.routing.ReplicaLagMonitor;
+import com.example.librarywithmockito.repository.routing.ReplicationRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Active once {@code application.datasource.replica.url} is set; until then the single
+ * auto-configured datasource serves everything.
+ */
+@Configuration
+@ConditionalOnProperty(name = "application.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${application.datasource.replica.url}") String url,
+                                              @Value("${application.datasource.replica.username:}") String username,
+                                              @Value("${application.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replica,
+                                               @Value("${application.datasource.replica.max-lag:PT5S}") Duration maxLag,
+                                               @Value("${application.datasource.replica.lag-query:}") String lagQuery) {
+        return new ReplicaLagMonitor(replica, maxLag, lagQuery);
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${application.datasource.read-your-writes.window:PT5S}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWritesTracker tracker, ClientKeyResolver clientKeyResolver) {
+        return new ReadYourWritesFilter(tracker, clientKeyResolver);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReplicaLagMonitor lagMonitor,
+                                 ReadYourWritesTracker readYourWrites) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicationRoutingDataSource(primary, replica, lagMonitor, readYourWrites));
+    }
+}
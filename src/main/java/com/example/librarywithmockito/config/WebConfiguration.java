@@ -0,0 +1,62 @@
+package com.example.librarywithmockito.config;
+
+import com.example.librarywithmockito.api.resource.ratelimit.AdaptiveConcurrencyLimiter;
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
+import com.example.librarywithmockito.api.resource.ratelimit.RateLimitInterceptor;
+import com.example.librarywithmockito.api.resource.ratelimit.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Set;
+
+@Configuration
+public class WebConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
+
+    public WebConfiguration(ObjectProvider<RateLimitInterceptor> rateLimitInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+    }
+
+    @Bean
+    public ClientKeyResolver clientKeyResolver(@Value("${application.clients.trusted-callers:}") Set<String> trustedCallers) {
+        return new ClientKeyResolver(trustedCallers);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "application.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+    public RateLimitInterceptor rateLimitInterceptor(
+            @Value("${application.ratelimit.read.permits-per-second:50}") double readPermitsPerSecond,
+            @Value("${application.ratelimit.read.burst:100}") int readBurst,
+            @Value("${application.ratelimit.write.permits-per-second:10}") double writePermitsPerSecond,
+            @Value("${application.ratelimit.write.burst:20}") int writeBurst,
+            @Value("${application.ratelimit.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${application.ratelimit.concurrency.min-limit:4}") int minLimit,
+            @Value("${application.ratelimit.concurrency.max-limit:200}") int maxLimit,
+            @Value("${application.ratelimit.concurrency.baseline-window:500}") int baselineWindow,
+            @Value("${application.ratelimit.concurrency.groups:loan.read,loan.write,book.write}") Set<String> limitedGroups,
+            ClientKeyResolver clientKeyResolver,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RateLimitInterceptor(
+                new TokenBucketRateLimiter(readPermitsPerSecond, readBurst),
+                new TokenBucketRateLimiter(writePermitsPerSecond, writeBurst),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, baselineWindow),
+                limitedGroups,
+                clientKeyResolver,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        rateLimitInterceptor.ifAvailable(interceptor -> registry
+                .addInterceptor(interceptor)
+                .addPathPatterns("/api/books/**", "/api/loans/**"));
+    }
+}
@@ -1,8 +1,42 @@
 package com.example.librarywithmockito.exception;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 public class BusinessException extends RuntimeException {
 
+    private static final Map<ErrorCode, BusinessException> PREALLOCATED = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode code : ErrorCode.values()) {
+            PREALLOCATED.put(code, new BusinessException(code));
+        }
+    }
+
+    private final ErrorCode errorCode;
+
     public BusinessException(String s) {
         super(s);
+        this.errorCode = null;
+    }
+
+    /**
+     * Expected failures carry no stack trace: it is never logged and filling it in
+     * is most of the cost of throwing.
+     */
+    protected BusinessException(ErrorCode errorCode) {
+        super(errorCode.getMessage(), null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    /**
+     * @return a shared, immutable instance for the code; safe to throw from any thread.
+     */
+    public static BusinessException of(ErrorCode errorCode) {
+        return PREALLOCATED.get(errorCode);
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
     }
 }
@@ -0,0 +1,37 @@
+package com.example.librarywithmockito.exception;
+
+import org.springframework.http.HttpStatus;
+
+public enum ErrorCode {
+
+    ISBN_ALREADY_REGISTERED("Isbn já cadastrado", HttpStatus.BAD_REQUEST),
+    BOOK_ALREADY_LOANED("Book already loaned", HttpStatus.BAD_REQUEST),
+    BOOK_ON_HOLD("Book is reserved for customers waiting on hold", HttpStatus.CONFLICT),
+    BOOK_NOT_FOUND_FOR_ISBN("Book not found for passed isbn", HttpStatus.BAD_REQUEST),
+    BOOK_NOT_FOUND("Book not found", HttpStatus.NOT_FOUND),
+    COPIES_ON_LOAN("Not enough copies on the shelf to remove", HttpStatus.CONFLICT),
+    LOAN_NOT_FOUND("Loan not found", HttpStatus.NOT_FOUND),
+    HOLD_NOT_FOUND("Hold not found", HttpStatus.NOT_FOUND),
+    ALREADY_ON_HOLD("Customer already has a hold on this book", HttpStatus.CONFLICT),
+    INVALID_POPULARITY_WINDOW("Window must be at least one day, such as 7d, and within the tracked retention", HttpStatus.BAD_REQUEST),
+    UNSUPPORTED_HISTORY_SORT("Loan history can only be sorted by id, ascending", HttpStatus.BAD_REQUEST),
+    TOO_MANY_LOOKUP_KEYS("Too many ids or isbns in a single lookup", HttpStatus.BAD_REQUEST),
+    CONCURRENT_UPDATE("Resource was changed concurrently, retry", HttpStatus.CONFLICT),
+    TOO_MANY_REQUESTS("Too many requests, retry later", HttpStatus.TOO_MANY_REQUESTS);
+
+    private final String message;
+    private final HttpStatus status;
+
+    ErrorCode(String message, HttpStatus status) {
+        this.message = message;
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.librarywithmockito.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "active_loan", indexes = @Index(name = "idx_active_loan_date", columnList = "loanDate"))
+public class ActiveLoan {
+
+    public static final int LOAN_DAYS = 4;
+
+    @Id
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Column
+    private LocalDate loanDate;
+
+    /**
+     * Hash of the customer's address, so late-loan shards split work by customer and every
+     * overdue loan of a customer lands in the same shard.
+     */
+    @JsonIgnore
+    @Column(name = "shard_key")
+    private Integer shardKey;
+
+    public LocalDate getDueDate() {
+        return loanDate == null ? null : loanDate.plusDays(LOAN_DAYS);
+    }
+
+    public static int shardKey(String customerEmail, String customer) {
+        String key = customerEmail != null ? normalizedEmail(customerEmail) : String.valueOf(customer);
+        return key.hashCode() & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Addresses differing only in case belong to the same customer, for sharding and digests alike.
+     */
+    public static String normalizedEmail(String customerEmail) {
+        return customerEmail == null ? null : customerEmail.toLowerCase();
+    }
+}
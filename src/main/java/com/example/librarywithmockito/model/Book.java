@@ -2,10 +2,13 @@ package com.example.librarywithmockito.model;
 
 import lombok.*;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.Version;
 
 @Data
 @NoArgsConstructor
@@ -19,6 +22,31 @@ public class Book {
     private Long id;
     private String title;
     private String author;
+    @Column(unique = true)
     private String isbn;
 
+    /**
+     * Physical copies of the title. Both counters are left out of entity updates and only move
+     * through the conditional updates in {@code BookRepository}, so saving a stale book never
+     * undoes a loan or a return.
+     */
+    @Column(nullable = false, updatable = false)
+    private Integer copies;
+
+    @Column(nullable = false, updatable = false)
+    private Integer availableCopies;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    void initCopies() {
+        if( copies == null ){
+            copies = 1;
+        }
+        if( availableCopies == null ){
+            availableCopies = copies;
+        }
+    }
+
 }
@@ -0,0 +1,32 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "book_popularity", indexes = @Index(name = "idx_book_popularity_total", columnList = "total_loans"))
+public class BookPopularity {
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(name = "total_loans", nullable = false)
+    private long totalLoans;
+
+    @Column(name = "active_loans", nullable = false)
+    private long activeLoans;
+
+    @Column
+    private LocalDate lastLoanDate;
+
+}
@@ -0,0 +1,21 @@
+package com.example.librarywithmockito.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The latest change of each book and loan written after a position in the change log, with
+ * their current state; a change whose row is not among the books or loans was a delete.
+ * {@code next} is the position to continue from.
+ */
+@Value
+public class ChangeBatch {
+
+    List<ChangeRecord> changes;
+    Map<Long, Book> books;
+    Map<Long, Loan> loans;
+    long next;
+
+}
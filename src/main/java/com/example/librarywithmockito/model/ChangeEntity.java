@@ -0,0 +1,6 @@
+package com.example.librarywithmockito.model;
+
+public enum ChangeEntity {
+    BOOK,
+    LOAN
+}
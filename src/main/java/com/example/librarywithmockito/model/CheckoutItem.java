@@ -0,0 +1,12 @@
+package com.example.librarywithmockito.model;
+
+import lombok.Value;
+
+@Value
+public class CheckoutItem {
+
+    String isbn;
+    CheckoutStatus status;
+    Loan loan;
+
+}
@@ -0,0 +1,16 @@
+package com.example.librarywithmockito.model;
+
+public enum CheckoutStatus {
+    LOANED,
+    BOOK_NOT_FOUND,
+    ALREADY_LOANED,
+    /**
+     * A copy may be on the shelf, but it is kept for the customers waiting on hold.
+     */
+    ON_HOLD,
+    DUPLICATED,
+    /**
+     * Available, but not loaned because another book of an all-or-nothing checkout failed.
+     */
+    NOT_PROCESSED
+}
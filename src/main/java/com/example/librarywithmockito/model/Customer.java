@@ -0,0 +1,35 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * One row per name and address pair, so loans carry a numeric key instead of repeating both
+ * strings on every row of a customer's history.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "customer", uniqueConstraints = @UniqueConstraint(name = "uk_customer_name_email", columnNames = {"name", "email"}))
+public class Customer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100, nullable = false)
+    private String name;
+
+    @Column
+    private String email;
+
+    public static Customer of(String name, String email) {
+        return Customer.builder().name(name).email(email).build();
+    }
+}
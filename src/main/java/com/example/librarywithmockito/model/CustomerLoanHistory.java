@@ -0,0 +1,35 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "customer_loan_history", indexes = @Index(name = "idx_customer_loan_history_customer", columnList = "customer"))
+public class CustomerLoanHistory {
+
+    @Id
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private LocalDate returnDate;
+
+}
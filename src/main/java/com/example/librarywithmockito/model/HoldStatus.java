@@ -0,0 +1,7 @@
+package com.example.librarywithmockito.model;
+
+public enum HoldStatus {
+    WAITING,
+    FULFILLED,
+    CANCELLED
+}
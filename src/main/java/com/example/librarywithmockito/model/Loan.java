@@ -13,18 +13,21 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @Builder
 @Entity
+@Table(name = "loan", indexes = {
+        @Index(name = "idx_loan_customer", columnList = "customer_id"),
+        @Index(name = "idx_loan_loan_date", columnList = "loanDate")
+})
 public class Loan {
 
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loan_seq")
+    @SequenceGenerator(name = "loan_seq", sequenceName = "loan_seq", allocationSize = 50)
     private Long id;
 
-    @Column(length = 100)
-    private String customer;
-
-    @Column(name = "customer_email")
-    private String customerEmail;
+    @JoinColumn(name = "customer_id")
+    @ManyToOne
+    private Customer customer;
 
     @JoinColumn(name = "id_book")
     @ManyToOne
@@ -36,4 +39,18 @@ public class Loan {
     @Column
     private Boolean returned;
 
+    @Column
+    private LocalDate returnDate;
+
+    @Version
+    private Long version;
+
+    public String getCustomerName() {
+        return customer != null ? customer.getName() : null;
+    }
+
+    public String getCustomerEmail() {
+        return customer != null ? customer.getEmail() : null;
+    }
+
 }
@@ -0,0 +1,64 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_archive", indexes = @Index(name = "idx_loan_archive_book", columnList = "id_book"))
+public class LoanArchive {
+
+    @Id
+    @Column
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @JoinColumn(name = "id_book")
+    @ManyToOne
+    private Book book;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private LocalDate returnDate;
+
+    @Column
+    private LocalDate archivedDate;
+
+    public static LoanArchive of(Loan loan) {
+        return LoanArchive.builder()
+                .id(loan.getId())
+                .customer(loan.getCustomerName())
+                .customerEmail(loan.getCustomerEmail())
+                .book(loan.getBook())
+                .loanDate(loan.getLoanDate())
+                .returnDate(loan.getReturnDate())
+                .archivedDate(LocalDate.now())
+                .build();
+    }
+
+    public Loan toLoan() {
+        return Loan.builder()
+                .id(id)
+                .customer(customer != null ? Customer.of(customer, customerEmail) : null)
+                .book(book)
+                .loanDate(loanDate)
+                .returned(true)
+                .returnDate(returnDate)
+                .build();
+    }
+}
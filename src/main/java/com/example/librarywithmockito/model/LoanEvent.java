@@ -0,0 +1,66 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Append-only; each event carries the loan as it was after the change, so projections never
+ * have to read the loan table back.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_event")
+public class LoanEvent {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column(name = "customer_email")
+    private String customerEmail;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private LoanEventType type;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column
+    private LocalDate returnDate;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    public static LoanEvent of(Loan loan, LoanEventType type) {
+        return LoanEvent.builder()
+                .loanId(loan.getId())
+                .bookId(loan.getBook() != null ? loan.getBook().getId() : null)
+                .customer(loan.getCustomerName())
+                .customerEmail(loan.getCustomerEmail())
+                .type(type)
+                .loanDate(loan.getLoanDate())
+                .returnDate(loan.getReturnDate())
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.librarywithmockito.model;
+
+public enum LoanEventType {
+    CREATED,
+    RETURNED,
+    REOPENED
+}
@@ -0,0 +1,38 @@
+package com.example.librarywithmockito.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a reminder as sent. The unique key doubles as a claim, so a reminder scheduled on
+ * several replicas, or again after a restart, is mailed once.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_reminder", uniqueConstraints = @UniqueConstraint(columnNames = {"loan_id", "type"}))
+public class LoanReminder {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "loan_id", nullable = false)
+    private Long loanId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private LoanReminderType type;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+
+}
@@ -0,0 +1,6 @@
+package com.example.librarywithmockito.model;
+
+public enum LoanReminderType {
+    DUE_SOON,
+    OVERDUE
+}
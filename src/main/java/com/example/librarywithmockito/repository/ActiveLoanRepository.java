@@ -0,0 +1,24 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ActiveLoanRepository extends JpaRepository<ActiveLoan, Long> {
+
+    Page<ActiveLoan> findByLoanDateLessThanEqualOrderByLoanDate( LocalDate loanDate, Pageable pageable );
+
+    @Query( " select a from ActiveLoan a where a.loanDate <= :loanDate and mod(a.shardKey, :shardCount) = :shard " +
+            " order by lower(a.customerEmail), a.loanDate " )
+    List<ActiveLoan> findByLoanDateLessThanEqualInShard(
+            @Param("loanDate") LocalDate loanDate,
+            @Param("shard") int shard,
+            @Param("shardCount") int shardCount
+    );
+}
@@ -0,0 +1,39 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.HoldStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BookHoldRepository extends JpaRepository<BookHold, Long> {
+
+    @Query( " select h.id from BookHold h where h.book.id = :bookId and h.status = 'WAITING' order by h.id " )
+    List<Long> findWaitingIds( @Param("bookId") Long bookId );
+
+    Optional<BookHold> findFirstByBookIdAndStatusOrderById( Long bookId, HoldStatus status );
+
+    boolean existsByBookIdAndStatus( Long bookId, HoldStatus status );
+
+    @Query(" select distinct h.book.id from BookHold h where h.book.id in :bookIds and h.status = :status ")
+    List<Long> findBookIdsWithStatus( @Param("bookIds") Collection<Long> bookIds, @Param("status") HoldStatus status );
+
+    boolean existsByBookIdAndCustomerIdAndStatus( Long bookId, Long customerId, HoldStatus status );
+
+    long countByBookIdAndStatusAndIdLessThan( Long bookId, HoldStatus status, Long id );
+
+    /**
+     * Moves a hold on only if it is still in the expected status, so a hold is fulfilled or
+     * cancelled once even when replicas race for it.
+     */
+    @Transactional
+    @Modifying
+    @Query( " update BookHold h set h.status = :to where h.id = :id and h.status = :from " )
+    int changeStatus( @Param("id") Long id, @Param("from") HoldStatus from, @Param("to") HoldStatus to );
+}
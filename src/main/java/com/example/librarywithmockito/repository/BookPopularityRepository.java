@@ -0,0 +1,12 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.BookPopularity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface BookPopularityRepository extends JpaRepository<BookPopularity, Long> {
+
+    List<BookPopularity> findAllByOrderByTotalLoansDesc( Pageable pageable );
+}
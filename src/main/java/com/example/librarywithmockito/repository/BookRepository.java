@@ -2,8 +2,17 @@ package com.example.librarywithmockito.repository;
 
 import com.example.librarywithmockito.model.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 
@@ -11,4 +20,51 @@ public interface BookRepository extends JpaRepository<Book, Long> {
 
     Optional<Book> findByIsbn(String isbn);
 
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    /**
+     * Takes one free copy, or changes nothing when none is left; the row lock taken by the
+     * update serializes concurrent claims on the same title.
+     */
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.availableCopies = b.availableCopies - 1 where b.id = :id and b.availableCopies > 0 ")
+    int claimCopy( @Param("id") Long id );
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.availableCopies = b.availableCopies + 1 where b.id = :id and b.availableCopies < b.copies ")
+    int releaseCopy( @Param("id") Long id );
+
+    /**
+     * Locks the books that still have a free copy, in id order so that checkouts of overlapping
+     * lists cannot deadlock, and returns their ids; {@link #claimCopies} then takes one copy of
+     * each with a single update.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(" select b.id from Book b where b.id in :ids and b.availableCopies > 0 order by b.id ")
+    List<Long> lockWithFreeCopy( @Param("ids") Collection<Long> ids );
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.availableCopies = b.availableCopies - 1 where b.id in :ids and b.availableCopies > 0 ")
+    int claimCopies( @Param("ids") Collection<Long> ids );
+
+    @Transactional
+    @Modifying
+    @Query(" update Book b set b.availableCopies = b.availableCopies + 1 where b.id in :ids and b.availableCopies < b.copies ")
+    int releaseCopies( @Param("ids") Collection<Long> ids );
+
+    /**
+     * A negative count removes copies, as long as that many are on the shelf.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(" update Book b set b.copies = b.copies + :count, b.availableCopies = b.availableCopies + :count " +
+            " where b.id = :id and b.availableCopies + :count >= 0 and b.copies + :count > 0 ")
+    int addCopies( @Param("id") Long id, @Param("count") int count );
+
+    @Query(" select b.isbn from Book b where b.isbn is not null ")
+    Stream<String> streamAllIsbns();
+
 }
@@ -0,0 +1,35 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.ChangeRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ChangeRecordRepository extends JpaRepository<ChangeRecord, Long> {
+
+    List<ChangeRecord> findByIdGreaterThanOrderById( Long since, Pageable pageable );
+
+    @Query( " select coalesce(max(c.id), 0) from ChangeRecord c " )
+    long findLatestId();
+
+    @Modifying
+    @Query( " update ChangeRecord c set c.recordedAt = :recordedAt where c.id in :ids " )
+    int updateRecordedAt( @Param("ids") Collection<Long> ids, @Param("recordedAt") LocalDateTime recordedAt );
+
+    /**
+     * Seeds an empty log with every book and loan, so a client starting from zero gets a full copy.
+     */
+    @Modifying
+    @Query( value = " insert into change_log ( entity, entity_id, recorded_at ) " +
+            " select 'BOOK', id, current_timestamp from book " +
+            " union all " +
+            " select 'LOAN', id, current_timestamp from loan ",
+            nativeQuery = true )
+    int seed();
+}
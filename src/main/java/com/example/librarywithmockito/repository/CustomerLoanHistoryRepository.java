@@ -0,0 +1,11 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.CustomerLoanHistory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CustomerLoanHistoryRepository extends JpaRepository<CustomerLoanHistory, Long> {
+
+    Page<CustomerLoanHistory> findByCustomerOrderByLoanDateDesc( String customer, Pageable pageable );
+}
@@ -0,0 +1,19 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    /**
+     * The unique key does not cover a missing address, so more than one row may match; callers
+     * take the oldest.
+     */
+    @Query(" select c from Customer c where c.name = :name " +
+            " and ( c.email = :email or ( :email is null and c.email is null ) ) order by c.id ")
+    List<Customer> findByNameAndEmail( @Param("name") String name, @Param("email") String email );
+}
@@ -0,0 +1,32 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.IdempotentResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotentResponseRepository extends JpaRepository<IdempotentResponse, String> {
+
+    @Query(" select r from IdempotentResponse r where r.key = :key and r.expiresAt > :now ")
+    Optional<IdempotentResponse> findValid( @Param("key") String key, @Param("now") LocalDateTime now );
+
+    /**
+     * Takes over a key whose response expired but was not purged yet.
+     */
+    @Transactional
+    @Modifying
+    @Query(" update IdempotentResponse r set r.body = :body, r.expiresAt = :expiresAt " +
+            " where r.key = :key and r.expiresAt <= :now ")
+    int replaceExpired( @Param("key") String key, @Param("body") String body,
+                        @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now );
+
+    @Transactional
+    @Modifying
+    @Query(" delete from IdempotentResponse r where r.expiresAt <= :now ")
+    int deleteExpired( @Param("now") LocalDateTime now );
+}
@@ -0,0 +1,22 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.LoanArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LoanArchiveRepository extends JpaRepository<LoanArchive, Long> {
+
+    long countByBook( Book book );
+
+    @Query( value = " select * from loan_archive where id_book = :bookId order by id limit :limit offset :offset ",
+            nativeQuery = true )
+    List<LoanArchive> findSliceByBook(
+            @Param("bookId") Long bookId,
+            @Param("offset") long offset,
+            @Param("limit") int limit
+    );
+}
@@ -0,0 +1,31 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.LoanEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LoanEventRepository extends JpaRepository<LoanEvent, Long> {
+
+    List<LoanEvent> findByIdGreaterThanOrderById( Long lastEventId, Pageable pageable );
+
+    /**
+     * Seeds the log with loans written before it existed, live and archived alike.
+     */
+    @Modifying
+    @Query( value = " insert into loan_event ( loan_id, book_id, customer, customer_email, type, loan_date, return_date, occurred_at ) " +
+            " select l.id, l.id_book, l.customer, l.customer_email, :type, l.loan_date, l.return_date, current_timestamp " +
+            " from ( select l.id, l.id_book, c.name as customer, c.email as customer_email, l.loan_date, l.return_date, l.returned " +
+            "        from loan l left join customer c on c.id = l.customer_id " +
+            "        union all " +
+            "        select id, id_book, customer, customer_email, loan_date, return_date, true from loan_archive ) l " +
+            " where ( :type = 'CREATED' or l.returned = true ) " +
+            " and not exists ( select 1 from loan_event e where e.loan_id = l.id and e.type = :type ) " +
+            " order by l.id ",
+            nativeQuery = true )
+    int backfill( @Param("type") String type );
+}
@@ -0,0 +1,22 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.LoanReminder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanReminderRepository extends JpaRepository<LoanReminder, Long> {
+
+    @Query( " select r from LoanReminder r where r.loanId in ( select l.id from Loan l where l.loanDate >= :since ) " )
+    List<LoanReminder> findByLoanDateSince( @Param("since") LocalDate since );
+
+    @Transactional
+    @Modifying
+    @Query( " delete from LoanReminder r where r.loanId = :loanId " )
+    int deleteByLoanId( @Param("loanId") Long loanId );
+}
@@ -2,6 +2,9 @@ package com.example.librarywithmockito.repository;
 
 import com.example.librarywithmockito.model.Book;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.BookLoanCount;
+import com.example.librarywithmockito.repository.projection.LoanDueDate;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,15 +12,17 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
-    @Query(value = " select case when ( count(l.id) > 0 ) then true else false end " +
-            " from Loan l where l.book = :book and ( l.returned is null or l.returned is false ) ")
-    boolean existsByBookAndNotReturned( @Param("book") Book book );
-
-    @Query( value = " select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer =:customer ")
+    /**
+     * The name is matched once against the customer table; loans are then selected by the
+     * numeric key.
+     */
+    @Query( value = " select l from Loan as l join l.book as b where b.isbn = :isbn " +
+            " or l.customer.id in ( select c.id from Customer c where c.name = :customer ) ")
     Page<Loan> findByBookIsbnOrCustomer(
             @Param("isbn") String isbn,
             @Param("customer") String customer,
@@ -26,6 +31,46 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
 
     Page<Loan> findByBook( Book book, Pageable pageable );
 
+    @Query( value = " select l.id as id, b.isbn as isbn, c.name as customer, c.email as email, " +
+            " b.id as bookId, b.title as bookTitle, b.author as bookAuthor " +
+            " from Loan as l join l.book as b left join l.customer as c where b.isbn = :isbn " +
+            " or c.id in ( select n.id from Customer n where n.name = :customer ) ",
+            countQuery = " select count(l) from Loan as l join l.book as b where b.isbn = :isbn " +
+                    " or l.customer.id in ( select n.id from Customer n where n.name = :customer ) ")
+    Page<LoanSummary> findSummaryByBookIsbnOrCustomer(
+            @Param("isbn") String isbn,
+            @Param("customer") String customer,
+            Pageable pageable
+    );
+
+    @Query( value = " select l.id as id, b.isbn as isbn, c.name as customer, c.email as email, " +
+            " b.id as bookId, b.title as bookTitle, b.author as bookAuthor " +
+            " from Loan as l join l.book as b left join l.customer as c where b.id = :bookId ",
+            countQuery = " select count(l) from Loan as l where l.book.id = :bookId ")
+    Page<LoanSummary> findSummaryByBookId( @Param("bookId") Long bookId, Pageable pageable );
+
+    long countByBook( Book book );
+
+    List<Loan> findByBookOrderById( Book book, Pageable pageable );
+
+    @Query(" select l from Loan l left join fetch l.book left join fetch l.customer where l.id in :ids ")
+    List<Loan> findWithBookByIdIn( @Param("ids") Collection<Long> ids );
+
+    @Query(" select l from Loan l where l.returned = true " +
+            " and ( l.returnDate < :returnedBefore or ( l.returnDate is null and l.loanDate < :returnedBefore ) ) " +
+            " order by l.id ")
+    List<Loan> findReturnedBefore( @Param("returnedBefore") LocalDate returnedBefore, Pageable pageable );
+
     @Query(" select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false ) ")
     List<Loan> findByLoanDateLessThanAndNotReturned( @Param("threeDaysAgo") LocalDate threeDaysAgo );
+
+    @Query( value = " select l.id_book as bookId, l.loan_date as loanDate, count(*) as loans " +
+            " from ( select id_book, loan_date from loan union all select id_book, loan_date from loan_archive ) l " +
+            " where l.loan_date >= :since group by l.id_book, l.loan_date ",
+            nativeQuery = true )
+    List<BookLoanCount> countLoansByBookAndDaySince( @Param("since") LocalDate since );
+
+    @Query( " select l.id as id, l.loanDate as loanDate from Loan l " +
+            " where ( l.returned is null or l.returned = false ) and l.loanDate >= :since " )
+    List<LoanDueDate> findDueDatesOfActiveLoansSince( @Param("since") LocalDate since );
 }
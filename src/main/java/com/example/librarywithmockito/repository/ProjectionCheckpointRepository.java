@@ -0,0 +1,7 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.ProjectionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ProjectionCheckpointRepository extends JpaRepository<ProjectionCheckpoint, String> {
+}
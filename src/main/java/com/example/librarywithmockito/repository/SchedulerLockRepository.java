@@ -0,0 +1,44 @@
+package com.example.librarywithmockito.repository;
+
+import com.example.librarywithmockito.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(" update SchedulerLock l set l.lockedBy = :owner, l.lockedAt = :now, l.lockUntil = :lockUntil " +
+            " where l.name = :name and l.lockUntil <= :now ")
+    int acquire(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") LocalDateTime now,
+            @Param("lockUntil") LocalDateTime lockUntil
+    );
+
+    @Transactional
+    @Modifying
+    @Query(value = " insert into scheduler_lock ( name, locked_by, locked_at, lock_until ) " +
+            " values ( :name, :owner, :now, :lockUntil ) ", nativeQuery = true)
+    int create(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("now") LocalDateTime now,
+            @Param("lockUntil") LocalDateTime lockUntil
+    );
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(" update SchedulerLock l set l.lockUntil = :lockUntil where l.name = :name and l.lockedBy = :owner ")
+    int release(
+            @Param("name") String name,
+            @Param("owner") String owner,
+            @Param("lockUntil") LocalDateTime lockUntil
+    );
+}
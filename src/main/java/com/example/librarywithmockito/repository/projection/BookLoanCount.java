@@ -0,0 +1,13 @@
+package com.example.librarywithmockito.repository.projection;
+
+import java.time.LocalDate;
+
+public interface BookLoanCount {
+
+    Long getBookId();
+
+    LocalDate getLoanDate();
+
+    Integer getLoans();
+
+}
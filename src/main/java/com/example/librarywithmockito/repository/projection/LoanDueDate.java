@@ -0,0 +1,11 @@
+package com.example.librarywithmockito.repository.projection;
+
+import java.time.LocalDate;
+
+public interface LoanDueDate {
+
+    Long getId();
+
+    LocalDate getLoanDate();
+
+}
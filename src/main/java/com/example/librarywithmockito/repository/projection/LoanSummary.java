@@ -0,0 +1,19 @@
+package com.example.librarywithmockito.repository.projection;
+
+public interface LoanSummary {
+
+    Long getId();
+
+    String getIsbn();
+
+    String getCustomer();
+
+    String getEmail();
+
+    Long getBookId();
+
+    String getBookTitle();
+
+    String getBookAuthor();
+
+}
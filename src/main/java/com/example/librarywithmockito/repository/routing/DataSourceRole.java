@@ -0,0 +1,6 @@
+package com.example.librarywithmockito.repository.routing;
+
+public enum DataSourceRole {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,32 @@
+package com.example.librarywithmockito.repository.routing;
+
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesTracker tracker;
+    private final ClientKeyResolver clientKeyResolver;
+
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker, ClientKeyResolver clientKeyResolver) {
+        this.tracker = tracker;
+        this.clientKeyResolver = clientKeyResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        tracker.bind(clientKeyResolver.resolve(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            tracker.clear();
+        }
+    }
+}
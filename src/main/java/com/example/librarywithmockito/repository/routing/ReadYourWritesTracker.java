@@ -0,0 +1,57 @@
+package com.example.librarywithmockito.repository.routing;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers when each client last wrote, so its reads stay on the primary until the
+ * replica had time to catch up. Clients are bound per request; unbound threads
+ * (scheduled jobs) are tracked by thread.
+ */
+public class ReadYourWritesTracker {
+
+    private final ThreadLocal<String> session = new ThreadLocal<>();
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void bind(String clientKey) {
+        session.set(clientKey);
+    }
+
+    public void clear() {
+        session.remove();
+    }
+
+    public void recordWrite() {
+        if( windowNanos > 0 ){
+            lastWrites.put(currentKey(), System.nanoTime());
+        }
+    }
+
+    public boolean mustReadPrimary() {
+        Long lastWrite = lastWrites.get(currentKey());
+        return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.read-your-writes.evict-interval:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+
+    int size() {
+        return lastWrites.size();
+    }
+
+    private String currentKey() {
+        String key = session.get();
+        return key != null ? key : "thread:" + Thread.currentThread().getId();
+    }
+}
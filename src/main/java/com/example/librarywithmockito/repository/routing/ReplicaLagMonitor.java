@@ -0,0 +1,72 @@
+package com.example.librarywithmockito.repository.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Takes the replica out of rotation while it is unreachable or further behind than the
+ * allowed lag. The lag query is database specific and must return the delay in seconds,
+ * e.g. {@code SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())} on PostgreSQL;
+ * without one only connectivity is checked.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource replica;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private volatile boolean replicaUsable = true;
+
+    public ReplicaLagMonitor(DataSource replica, Duration maxLag, String lagQuery) {
+        this.replica = replica;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public void markUnavailable(SQLException cause) {
+        if( replicaUsable ){
+            log.warn("Replica unavailable, reading from primary: {}", cause.getMessage());
+        }
+        replicaUsable = false;
+    }
+
+    @Scheduled(fixedDelayString = "${application.datasource.replica.check-interval:10000}")
+    public void check() {
+        try (Connection connection = replica.getConnection()) {
+            boolean usable = connection.isValid(VALIDATION_TIMEOUT_SECONDS) && lagOf(connection) <= maxLag.toMillis();
+            if( usable != replicaUsable ){
+                log.info("Replica {}", usable ? "back in rotation" : "lagging behind, reading from primary");
+            }
+            replicaUsable = usable;
+        } catch (SQLException ex) {
+            markUnavailable(ex);
+        }
+    }
+
+    private long lagOf(Connection connection) throws SQLException {
+        if( lagQuery == null ){
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(lagQuery)) {
+            if( !resultSet.next() ){
+                return 0;
+            }
+            double seconds = resultSet.getDouble(1);
+            return resultSet.wasNull() ? 0 : (long) (seconds * 1000);
+        }
+    }
+}
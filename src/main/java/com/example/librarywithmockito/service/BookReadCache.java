@@ -0,0 +1,17 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+public interface BookReadCache {
+
+    Optional<Book> getById(Long id, Supplier<Optional<Book>> loader);
+
+    Optional<Book> getByIsbn(String isbn, Supplier<Optional<Book>> loader);
+
+    Optional<Book> getIfPresent(Long id);
+
+    void evict(Book book);
+}
@@ -4,7 +4,11 @@ import com.example.librarywithmockito.model.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface BookService {
 
@@ -16,7 +20,30 @@ public interface BookService {
 
     Book update(Book book);
 
+    Optional<Book> update(Long id, Consumer<Book> changes);
+
     Page<Book> find(Book filter, Pageable pageRequest );
 
     Optional<Book> getBookByIsbn(String isbn);
+
+    List<Book> getByIds(Collection<Long> ids);
+
+    List<Book> getByIsbns(Collection<String> isbns);
+
+    /**
+     * Takes one free copy of the book, returning false when every copy is on loan.
+     */
+    boolean claimCopy(Book book);
+
+    void releaseCopy(Book book);
+
+    /**
+     * Takes one free copy of each book with a constant number of statements, returning the ids
+     * of the books that had one.
+     */
+    Set<Long> claimCopies(Collection<Book> books);
+
+    void releaseCopies(Collection<Book> books);
+
+    Optional<Book> addCopies(Long id, int count);
 }
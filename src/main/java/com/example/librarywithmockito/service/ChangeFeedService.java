@@ -0,0 +1,21 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.ChangeBatch;
+import com.example.librarywithmockito.model.ChangeEntity;
+
+public interface ChangeFeedService {
+
+    /**
+     * Appends a change in the caller's transaction; rolled back with it.
+     */
+    void record( ChangeEntity entity, Long id );
+
+    ChangeBatch since( long since, int limit );
+
+    long latest();
+
+    /**
+     * Runs the listener after each transaction that recorded changes on this instance commits.
+     */
+    void onCommit( Runnable listener );
+}
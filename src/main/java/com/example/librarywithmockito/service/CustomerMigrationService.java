@@ -0,0 +1,149 @@
+package com.example.librarywithmockito.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Moves databases created before the customer table onto it. Loans that still carry the old
+ * {@code customer} and {@code customer_email} columns get a customer row and a
+ * {@code customer_id}, one batch per transaction, so the table is never locked as a whole and
+ * an interrupted run resumes where it stopped. Schemas created with the customer table have no
+ * such columns and are left alone.
+ * <p>
+ * It runs as an application runner, before the instance reports ready. Only the replica holding
+ * the lease migrates; the others wait for it, so every replica starts serving with the loans
+ * already linked.
+ */
+@Slf4j
+@Service
+public class CustomerMigrationService implements ApplicationRunner {
+
+    private static final String LOCK = "customer-migration";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofHours(1);
+    private static final Duration LOCK_POLL_INTERVAL = Duration.ofSeconds(1);
+
+    private static final String SAME_CUSTOMER =
+            " c.name = l.customer and coalesce(c.email, '') = coalesce(l.customer_email, '') ";
+
+    private final JdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final TransactionTemplate transaction;
+    private final SchedulerLockService lockService;
+    private final int batchSize;
+    private final boolean dropLegacyColumns;
+
+    public CustomerMigrationService(JdbcTemplate jdbc,
+                                    PlatformTransactionManager transactionManager,
+                                    SchedulerLockService lockService,
+                                    @Value("${application.customers.migration.batch-size:1000}") int batchSize,
+                                    @Value("${application.customers.migration.drop-legacy-columns:false}") boolean dropLegacyColumns) {
+        this.jdbc = jdbc;
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbc);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.lockService = lockService;
+        this.batchSize = batchSize;
+        this.dropLegacyColumns = dropLegacyColumns;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrate();
+    }
+
+    public int migrate() {
+        if( !hasLegacyColumns() || !awaitLock() ){
+            return 0;
+        }
+        try {
+            if( !hasLegacyColumns() ){
+                return 0;
+            }
+            int migrated = 0;
+            int batch;
+            do {
+                batch = runBatch();
+                migrated += batch;
+            } while (batch > 0);
+            log.info("Linked {} loans to customer rows", migrated);
+
+            if( dropLegacyColumns ){
+                jdbc.execute(" alter table loan drop column customer ");
+                jdbc.execute(" alter table loan drop column customer_email ");
+                log.info("Dropped the legacy customer columns of loan");
+            }
+            return migrated;
+        } finally {
+            lockService.unlock(LOCK, Duration.ZERO);
+        }
+    }
+
+    /**
+     * Waits while another replica migrates; gives up once that replica has dropped the legacy
+     * columns, since there is nothing left to do.
+     */
+    private boolean awaitLock() {
+        while ( !lockService.tryLock(LOCK, LOCK_AT_MOST_FOR) ) {
+            try {
+                Thread.sleep(LOCK_POLL_INTERVAL.toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the customer migration lease", ex);
+            }
+            if( !hasLegacyColumns() ){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A batch only inserts the customers it cannot find, so a batch that collides with rows
+     * written meanwhile, e.g. by a replica whose lease expired mid-run, is simply run again.
+     */
+    private int runBatch() {
+        try {
+            return transaction.execute(status -> migrateBatch());
+        } catch (DataIntegrityViolationException ex) {
+            log.info("Customer rows of a migration batch already exist, retrying the batch");
+            return transaction.execute(status -> migrateBatch());
+        }
+    }
+
+    private int migrateBatch() {
+        List<Long> ids = jdbc.queryForList(
+                " select id from loan where customer_id is null and customer is not null order by id limit ? ",
+                Long.class, batchSize);
+        if( ids.isEmpty() ){
+            return 0;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        namedJdbc.update(" insert into customer ( name, email ) " +
+                " select distinct l.customer, l.customer_email from loan l where l.id in ( :ids ) " +
+                " and not exists ( select 1 from customer c where" + SAME_CUSTOMER + ") ", params);
+        return namedJdbc.update(" update loan l set customer_id = " +
+                " ( select min(c.id) from customer c where" + SAME_CUSTOMER + ") " +
+                " where l.id in ( :ids ) ", params);
+    }
+
+    private boolean hasLegacyColumns() {
+        try {
+            jdbc.queryForList(" select customer, customer_email from loan where 1 = 0 ");
+            return true;
+        } catch (DataAccessException ex) {
+            return false;
+        }
+    }
+}
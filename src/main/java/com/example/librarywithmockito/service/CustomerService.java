@@ -0,0 +1,11 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Customer;
+
+public interface CustomerService {
+
+    /**
+     * Returns the customer with this name and address, creating it on first use.
+     */
+    Customer resolve( String name, String email );
+}
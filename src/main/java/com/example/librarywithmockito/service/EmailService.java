@@ -1,9 +1,7 @@
 package com.example.librarywithmockito.service;
 
-import java.util.List;
-
 public interface EmailService {
 
-    void sendMails(String message, List<String> mailsList);
+    void sendMail(String to, String subject, String text);
 
 }
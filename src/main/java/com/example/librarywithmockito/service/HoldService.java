@@ -0,0 +1,42 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.Loan;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+
+public interface HoldService {
+
+    BookHold place( Book book, Customer customer );
+
+    boolean cancel( Long id );
+
+    Optional<BookHold> getById( Long id );
+
+    /**
+     * 1 for the next hold to be served; 0 once the hold is no longer waiting.
+     */
+    long position( BookHold hold );
+
+    boolean hasWaiting( Book book );
+
+    /**
+     * The ids, among the given ones, of the books with at least one waiting hold.
+     */
+    Set<Long> withWaiting( Collection<Long> bookIds );
+
+    /**
+     * Takes the oldest waiting hold on the book, marking it fulfilled.
+     */
+    Optional<BookHold> claimNext( Book book );
+
+    /**
+     * Links the hold to the loan made for it and queues a mail to the customer once the
+     * transaction commits.
+     */
+    void fulfilled( BookHold hold, Loan loan );
+}
@@ -0,0 +1,15 @@
+package com.example.librarywithmockito.service;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * @param client who sent the request; keys are only ever matched within the same client, so
+     *               two clients choosing the same key never see each other's responses.
+     */
+    <T> T execute(String scope, String client, String idempotencyKey, Class<T> responseType, Supplier<T> action);
+
+}
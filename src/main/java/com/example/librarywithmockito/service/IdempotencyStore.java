@@ -0,0 +1,16 @@
+package com.example.librarywithmockito.service;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    Optional<String> find(String key);
+
+    /**
+     * Stores the body unless a live response for the key is already there.
+     *
+     * @return the body now stored for the key: this one, or the one that got there first.
+     */
+    String putIfAbsent(String key, String body);
+
+}
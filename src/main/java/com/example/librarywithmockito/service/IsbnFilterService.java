@@ -0,0 +1,21 @@
+package com.example.librarywithmockito.service;
+
+/**
+ * In-memory pre-check of known ISBNs, used to skip the duplicate check when registering a book.
+ * A positive answer must be confirmed against the database. A negative one is only definitive for
+ * this instance's own inserts, so reads must not rely on it.
+ */
+public interface IsbnFilterService {
+
+    boolean mightExist(String isbn);
+
+    void add(String isbn);
+
+    void recordDelete(String isbn);
+
+    void recordFalsePositive();
+
+    void rebuild();
+
+    void rebuildIfStale();
+}
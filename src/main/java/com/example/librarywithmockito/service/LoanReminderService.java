@@ -0,0 +1,25 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Loan;
+
+/**
+ * "Due tomorrow" and "overdue" reminders, fired close to the due time from an in-memory timer
+ * wheel instead of a daily scan.
+ */
+public interface LoanReminderService {
+
+    /**
+     * Schedules or cancels the reminders of a loan that was created, returned or reopened.
+     */
+    void loanChanged(Loan loan);
+
+    /**
+     * Schedules the reminders of every active loan that were not sent yet.
+     */
+    void reload();
+
+    /**
+     * Sends the reminders that came due since the last call.
+     */
+    int sendDueReminders();
+}
@@ -0,0 +1,29 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.BookPopularity;
+import com.example.librarywithmockito.model.CustomerLoanHistory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Reporting reads served from projections of the loan event log instead of the loan table.
+ */
+public interface LoanReportService {
+
+    int projectEvents(int batchSize);
+
+    Page<CustomerLoanHistory> getCustomerHistory(String customer, Pageable pageable);
+
+    List<BookPopularity> getMostPopularBooks(int limit);
+
+    Page<ActiveLoan> getLateLoans(Pageable pageable);
+
+    /**
+     * Late loans of one customer shard, ordered by customer address so callers can group them
+     * in a single pass.
+     */
+    List<ActiveLoan> getLateLoans(int shard, int shardCount);
+}
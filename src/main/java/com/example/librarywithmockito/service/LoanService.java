@@ -2,23 +2,55 @@ package com.example.librarywithmockito.service;
 
 import com.example.librarywithmockito.api.resource.dto.LoanFilterDTO;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.CheckoutItem;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface LoanService {
     Loan save( Loan loan );
 
+    /**
+     * Loans several books to one customer in a single transaction. Without {@code allowPartial}
+     * nothing is loaned unless every book is available.
+     */
+    List<CheckoutItem> checkout( String customer, String customerEmail, List<String> isbns, boolean allowPartial );
+
+    /**
+     * Loans the book right away when a copy is free, otherwise queues the customer; the next
+     * return of the book then goes to the oldest hold.
+     */
+    BookHold hold( Book book, String customer, String customerEmail );
+
+    /**
+     * Adds copies of a book, handing them to waiting holds before they reach the shelf.
+     */
+    Optional<Book> addCopies( Long bookId, int count );
+
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    Optional<Loan> update(Long id, Consumer<Loan> changes);
+
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+    Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean includeArchived);
+
+    int archiveReturnedLoans(LocalDate returnedBefore, int batchSize);
+
     List<Loan> getAllLateLoans();
 
     Page<Loan> find(LoanFilterDTO dto, Pageable pageRequest);
+
+    Page<LoanSummary> findSummaries(LoanFilterDTO dto, Pageable pageRequest);
+
+    Page<LoanSummary> getLoanSummariesByBook(Book book, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.util.WindowedTopK;
+
+import java.time.Duration;
+
+public interface PopularBooksService {
+
+    void recordLoan(Long bookId);
+
+    WindowedTopK.Snapshot getMostBorrowed(Duration window, int limit);
+
+    Duration minWindow();
+
+    Duration maxWindow();
+
+    void rebuild();
+}
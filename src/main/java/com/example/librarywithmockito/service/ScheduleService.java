@@ -1,34 +1,181 @@
 package com.example.librarywithmockito.service;
 
-import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.util.MailTemplate;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ScheduleService {
 
     private static final String CRON_LATE_LOANS = "0 0 0 1/1 * ?";
+    private static final String CRON_ARCHIVE_LOANS = "0 30 1 1/1 * ?";
 
-    @Value("${application.mail.lateloans.message}")
-    private String message;
+    private static final String LATE_LOANS_LOCK = "late-loans-";
+    private static final String ARCHIVE_LOANS_LOCK = "archive-loans";
+    private static final String LOAN_PROJECTION_LOCK = "loan-projection";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofHours(2);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(60);
+    private static final Duration PROJECTION_LOCK_AT_MOST_FOR = Duration.ofMinutes(10);
+
+    private static final DateTimeFormatter DUE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    @Value("${application.mail.lateloans.subject}")
+    private String lateLoansSubject;
+
+    private MailTemplate lateLoansTemplate;
+    private MailTemplate lateLoanLineTemplate;
+
+    @Value("${application.loans.archive.after-days:30}")
+    private Integer archiveAfterDays;
+
+    @Value("${application.loans.archive.batch-size:500}")
+    private Integer archiveBatchSize;
+
+    @Value("${application.scheduler.late-loans.shards:4}")
+    private Integer lateLoanShards;
+
+    @Value("${application.loans.projection.batch-size:500}")
+    private Integer projectionBatchSize;
 
     private final LoanService loanService;
+    private final LoanReportService loanReportService;
+    private final BookService bookService;
     private final EmailService emailService;
+    private final SchedulerLockService lockService;
+
+    @Value("${application.mail.lateloans.template}")
+    void setLateLoansTemplate(String template) {
+        this.lateLoansTemplate = MailTemplate.compile(template, "customer", "loans");
+    }
 
+    @Value("${application.mail.lateloans.line}")
+    void setLateLoanLineTemplate(String template) {
+        this.lateLoanLineTemplate = MailTemplate.compile(template, "title", "dueDate");
+    }
+
+    /**
+     * Every replica fires at the same time; each one walks the shards from a random start and
+     * only scans the shards whose lease it wins, so the work is split without duplicate mails.
+     */
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans();
-        List<String> mailsList = allLateLoans.stream()
-                .map(loan -> loan.getCustomerEmail())
-                .collect(Collectors.toList());
+        int first = ThreadLocalRandom.current().nextInt(lateLoanShards);
+        for (int i = 0; i < lateLoanShards; i++) {
+            int shard = (first + i) % lateLoanShards;
+            String lockName = LATE_LOANS_LOCK + shard;
+            if( !lockService.tryLock(lockName, LOCK_AT_MOST_FOR) ){
+                continue;
+            }
+            try {
+                sendMailToLateLoans(shard);
+            } finally {
+                lockService.unlock(lockName, LOCK_AT_LEAST_FOR);
+            }
+        }
+    }
 
-        emailService.sendMails(message, mailsList);
+    /**
+     * Late loans come ordered by customer address, ignoring case, so each run of equal addresses
+     * is one customer's digest. A digest that cannot be sent is logged and skipped, so one bad
+     * address does not hold back the rest of the shard.
+     */
+    void sendMailToLateLoans(int shard){
+        List<ActiveLoan> lateLoans = loanReportService.getLateLoans(shard, lateLoanShards);
+        if( lateLoans.isEmpty() ){
+            return;
+        }
+        Set<Long> bookIds = lateLoans.stream().map(ActiveLoan::getBookId).collect(Collectors.toSet());
+        Map<Long, String> titles = bookService.getByIds(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Book::getTitle));
+
+        int digests = 0;
+        int failed = 0;
+        int first = 0;
+        for (int i = 1; i <= lateLoans.size(); i++) {
+            if( i == lateLoans.size() || !Objects.equals(
+                    ActiveLoan.normalizedEmail(lateLoans.get(i).getCustomerEmail()),
+                    ActiveLoan.normalizedEmail(lateLoans.get(first).getCustomerEmail())) ){
+                digests++;
+                if( !sendDigest(lateLoans.subList(first, i), titles) ){
+                    failed++;
+                }
+                first = i;
+            }
+        }
+        if( failed > 0 ){
+            log.warn("Could not send {} of {} late loan digests of shard {}", failed, digests, shard);
+        }
+    }
+
+    private boolean sendDigest(List<ActiveLoan> loans, Map<Long, String> titles){
+        ActiveLoan any = loans.get(0);
+        if( any.getCustomerEmail() == null ){
+            return true;
+        }
+        StringBuilder lines = new StringBuilder();
+        for (ActiveLoan loan : loans) {
+            lateLoanLineTemplate.renderTo(lines, name -> "title".equals(name)
+                    ? titles.getOrDefault(loan.getBookId(), "")
+                    : loan.getDueDate().format(DUE_DATE_FORMAT));
+        }
+        String text = lateLoansTemplate.render(name -> "customer".equals(name)
+                ? Objects.toString(any.getCustomer(), "")
+                : lines.toString());
+        try {
+            emailService.sendMail(any.getCustomerEmail(), lateLoansSubject, text);
+            return true;
+        } catch (MailException ex) {
+            log.warn("Could not send the late loan digest to {}", any.getCustomerEmail(), ex);
+            return false;
+        }
+    }
+
+    @Scheduled(cron = CRON_ARCHIVE_LOANS)
+    public void archiveReturnedLoans(){
+        if( !lockService.tryLock(ARCHIVE_LOANS_LOCK, LOCK_AT_MOST_FOR) ){
+            return;
+        }
+        try {
+            LocalDate returnedBefore = LocalDate.now().minusDays(archiveAfterDays);
+            int archived;
+            do {
+                archived = loanService.archiveReturnedLoans(returnedBefore, archiveBatchSize);
+            } while ( archived == archiveBatchSize );
+        } finally {
+            lockService.unlock(ARCHIVE_LOANS_LOCK, LOCK_AT_LEAST_FOR);
+        }
+    }
 
+    @Scheduled(fixedDelayString = "${application.loans.projection.interval:5000}")
+    public void projectLoanEvents(){
+        if( !lockService.tryLock(LOAN_PROJECTION_LOCK, PROJECTION_LOCK_AT_MOST_FOR) ){
+            return;
+        }
+        try {
+            int projected;
+            do {
+                projected = loanReportService.projectEvents(projectionBatchSize);
+            } while ( projected == projectionBatchSize );
+        } finally {
+            lockService.unlock(LOAN_PROJECTION_LOCK, Duration.ZERO);
+        }
     }
 }
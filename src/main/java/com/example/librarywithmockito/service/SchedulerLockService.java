@@ -0,0 +1,11 @@
+package com.example.librarywithmockito.service;
+
+import java.time.Duration;
+
+public interface SchedulerLockService {
+
+    boolean tryLock(String name, Duration lockAtMostFor);
+
+    void unlock(String name, Duration lockAtLeastFor);
+
+}
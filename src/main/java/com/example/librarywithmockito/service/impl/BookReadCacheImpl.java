@@ -0,0 +1,212 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.service.BookReadCache;
+import com.example.librarywithmockito.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import lombok.Data;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent misses for the same id or isbn share one repository call, and the result is kept
+ * for a short time so an expiring popular entry does not send every reader to the database at
+ * once. Callers always receive their own copy, never the instance held here.
+ * <p>
+ * A write evicts the book right away and again after commit, through an index of the keys each
+ * book is cached under. Loads that started before the last eviction of their book, or took
+ * longer than the ttl, are returned to their callers but not cached, so a slow read cannot put
+ * back a row that was just changed. Eviction times are therefore only kept for one ttl.
+ */
+@Service
+public class BookReadCacheImpl implements BookReadCache {
+
+    private static final String METRIC = "library.books.reads";
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Clock clock;
+    private final ConcurrentMap<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Object>> keysById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Long> evictedAt = new ConcurrentHashMap<>();
+    private final AtomicLong prunedAt = new AtomicLong();
+    private final SingleFlight<Object, Optional<Book>> singleFlight = new SingleFlight<>();
+    private final Counter hits;
+
+    @Autowired
+    public BookReadCacheImpl(@Value("${application.books.read-cache.ttl:PT2S}") Duration ttl,
+                             @Value("${application.books.read-cache.max-entries:10000}") int maxEntries,
+                             ObjectProvider<MeterRegistry> meterRegistry) {
+        this(ttl, maxEntries, meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), Clock.systemUTC());
+    }
+
+    public BookReadCacheImpl(Duration ttl, int maxEntries, MeterRegistry registry, Clock clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.hits = Counter.builder(METRIC).tag("result", "cached").register(registry);
+        FunctionCounter.builder(METRIC, singleFlight, SingleFlight::leaders).tag("result", "loaded").register(registry);
+        FunctionCounter.builder(METRIC, singleFlight, SingleFlight::coalesced).tag("result", "coalesced").register(registry);
+        Gauge.builder(METRIC + ".coalescing.ratio", singleFlight, BookReadCacheImpl::coalescingRatio).register(registry);
+        Gauge.builder(METRIC + ".in.flight", singleFlight, SingleFlight::inFlight).register(registry);
+        Gauge.builder(METRIC + ".cache.size", entries, ConcurrentMap::size).register(registry);
+    }
+
+    private static double coalescingRatio(SingleFlight<?, ?> singleFlight) {
+        long coalesced = singleFlight.coalesced();
+        long total = coalesced + singleFlight.leaders();
+        return total == 0 ? 0.0 : (double) coalesced / total;
+    }
+
+    @Override
+    public Optional<Book> getById(Long id, Supplier<Optional<Book>> loader) {
+        return get(id, loader);
+    }
+
+    @Override
+    public Optional<Book> getByIsbn(String isbn, Supplier<Optional<Book>> loader) {
+        return get(new IsbnKey(isbn), loader);
+    }
+
+    @Override
+    public Optional<Book> getIfPresent(Long id) {
+        Entry entry = entries.get(id);
+        if( entry == null || entry.getExpiresAt() <= clock.millis() ){
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copy(entry.getBook()));
+    }
+
+    @Override
+    public void evict(Book book) {
+        if( book == null || book.getId() == null ){
+            return;
+        }
+        Long id = book.getId();
+        Runnable evict = () -> {
+            long now = clock.millis();
+            evictedAt.merge(id, now, Math::max);
+            Set<Object> keys = keysById.remove(id);
+            if( keys != null ){
+                keys.forEach(entries::remove);
+            }
+            pruneEvictions(now);
+        };
+        evict.run();
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private Optional<Book> get(Object key, Supplier<Optional<Book>> loader) {
+        Entry entry = entries.get(key);
+        if( entry != null && entry.getExpiresAt() > clock.millis() ){
+            hits.increment();
+            return Optional.of(copy(entry.getBook()));
+        }
+        return singleFlight.execute(key, () -> load(key, loader)).map(BookReadCacheImpl::copy);
+    }
+
+    private Optional<Book> load(Object key, Supplier<Optional<Book>> loader) {
+        long startedAt = clock.millis();
+        Optional<Book> book = loader.get().map(BookReadCacheImpl::copy);
+        if( book.isPresent() && ttlMillis > 0 && cacheable(book.get().getId(), startedAt) ){
+            put(key, book.get(), startedAt);
+        }
+        return book;
+    }
+
+    /**
+     * An eviction in the same millisecond as the start of the load counts as later.
+     */
+    private boolean cacheable(Long id, long startedAt) {
+        Long evicted = evictedAt.get(id);
+        return (evicted == null || evicted < startedAt) && clock.millis() - startedAt < ttlMillis;
+    }
+
+    /**
+     * The key is indexed before the entry is stored, so an eviction racing with the put either
+     * finds and removes the entry or is seen by the check after it.
+     */
+    private void put(Object key, Book book, long startedAt) {
+        long now = clock.millis();
+        if( entries.size() >= maxEntries ){
+            entries.entrySet().removeIf(entry -> entry.getValue().getExpiresAt() <= now
+                    && unindex(entry.getKey(), entry.getValue().getBook().getId()));
+            if( entries.size() >= maxEntries ){
+                return;
+            }
+        }
+        Long id = book.getId();
+        keysById.computeIfAbsent(id, ignored -> ConcurrentHashMap.newKeySet()).add(key);
+        Entry entry = new Entry(book, now + ttlMillis);
+        entries.put(key, entry);
+        if( !cacheable(id, startedAt) ){
+            entries.remove(key, entry);
+        }
+    }
+
+    private boolean unindex(Object key, Long id) {
+        keysById.computeIfPresent(id, (ignored, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+        return true;
+    }
+
+    /**
+     * At most once per ttl; older evictions cannot matter to a load that is still allowed to cache.
+     */
+    private void pruneEvictions(long now) {
+        long last = prunedAt.get();
+        if( now - last >= ttlMillis && prunedAt.compareAndSet(last, now) ){
+            evictedAt.values().removeIf(at -> at < now - ttlMillis);
+        }
+    }
+
+    private static Book copy(Book book) {
+        return Book.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .copies(book.getCopies())
+                .availableCopies(book.getAvailableCopies())
+                .version(book.getVersion())
+                .build();
+    }
+
+    @Data
+    private static final class Entry {
+        private final Book book;
+        private final long expiresAt;
+    }
+
+    @Data
+    private static final class IsbnKey {
+        private final String isbn;
+    }
+}
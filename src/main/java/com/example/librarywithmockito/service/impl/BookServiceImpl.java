@@ -1,51 +1,122 @@
 package com.example.librarywithmockito.service.impl;
 
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.ChangeEntity;
 import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.service.BookReadCache;
 import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.ChangeFeedService;
+import com.example.librarywithmockito.service.IsbnFilterService;
+import com.example.librarywithmockito.service.retry.RetryOnConflict;
 import lombok.SneakyThrows;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Service
 public class BookServiceImpl implements BookService {
 
+    static final int LOOKUP_CHUNK_SIZE = 500;
+
     private BookRepository bookRepository;
+    private IsbnFilterService isbnFilter;
+    private BookReadCache readCache;
+    private ChangeFeedService changeFeed;
 
-    public BookServiceImpl(BookRepository bookRepository) {
+    public BookServiceImpl(BookRepository bookRepository, IsbnFilterService isbnFilter, BookReadCache readCache,
+                           ChangeFeedService changeFeed) {
         this.bookRepository = bookRepository;
+        this.isbnFilter = isbnFilter;
+        this.readCache = readCache;
+        this.changeFeed = changeFeed;
     }
 
+    /**
+     * A negative from the ISBN filter only skips the pre-check; a duplicate registered through
+     * another instance is still rejected by the unique key.
+     */
     @Override
+    @Transactional
     public Book save(Book entity) {
-        if(bookRepository.existsByIsbn(entity.getIsbn())){
-            throw new BusinessException("Isbn já cadastrado");
+        if( isbnFilter.mightExist(entity.getIsbn()) ){
+            if( bookRepository.existsByIsbn(entity.getIsbn()) ){
+                throw BusinessException.of(ErrorCode.ISBN_ALREADY_REGISTERED);
+            }
+            isbnFilter.recordFalsePositive();
+        }
+        entity.setAvailableCopies(null);
+        Book saved;
+        try {
+            saved = bookRepository.save(entity);
+        } catch (DataIntegrityViolationException ex) {
+            throw BusinessException.of(ErrorCode.ISBN_ALREADY_REGISTERED);
         }
-        return bookRepository.save(entity);
+        isbnFilter.add(saved.getIsbn());
+        readCache.evict(saved);
+        changeFeed.record(ChangeEntity.BOOK, saved.getId());
+        return saved;
     }
 
+    /**
+     * Not transactional, so callers waiting on a shared load do not each hold a connection.
+     */
     @Override
     public Optional<Book> getById(Long id) {
-        return this.bookRepository.findById(id);
+        return readCache.getById(id, () -> bookRepository.findById(id));
     }
 
+    /**
+     * The given book may be a detached copy, e.g. from the read cache, whose version is already
+     * stale: its title and author are applied to the entity reloaded in this transaction instead
+     * of merging it. Read-modify-write callers should use {@link #update(Long, Consumer)}.
+     */
     @SneakyThrows
     @Override
+    @Transactional
     public Book update(Book book)  {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null");
         }
-        return bookRepository.save(book);
+        Book managed = bookRepository.findById(book.getId())
+                .orElseThrow(() -> BusinessException.of(ErrorCode.BOOK_NOT_FOUND));
+        managed.setTitle(book.getTitle());
+        managed.setAuthor(book.getAuthor());
+        readCache.evict(managed);
+        changeFeed.record(ChangeEntity.BOOK, managed.getId());
+        return bookRepository.save(managed);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict("book.update")
+    public Optional<Book> update(Long id, Consumer<Book> changes) {
+        return bookRepository.findById(id).map(book -> {
+            changes.accept(book);
+            return update(book);
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
         Example<Book> example = Example.of(filter,
                 ExampleMatcher
@@ -58,15 +129,147 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional
+    public boolean claimCopy(Book book) {
+        if( book == null || book.getId() == null || bookRepository.claimCopy(book.getId()) == 0 ){
+            return false;
+        }
+        readCache.evict(book);
+        changeFeed.record(ChangeEntity.BOOK, book.getId());
+        return true;
+    }
+
+    /**
+     * One locking read finds the books with a free copy and one update claims them, whatever the
+     * number of books.
+     */
+    @Override
+    @Transactional
+    public Set<Long> claimCopies(Collection<Book> books) {
+        List<Long> ids = idsOf(books);
+        if( ids.isEmpty() ){
+            return Set.of();
+        }
+        List<Long> free = bookRepository.lockWithFreeCopy(ids);
+        if( free.isEmpty() ){
+            return Set.of();
+        }
+        bookRepository.claimCopies(free);
+        Set<Long> claimed = new HashSet<>(free);
+        copiesChanged(books, claimed);
+        return claimed;
+    }
+
+    @Override
+    @Transactional
+    public void releaseCopies(Collection<Book> books) {
+        List<Long> ids = idsOf(books);
+        if( !ids.isEmpty() && bookRepository.releaseCopies(ids) > 0 ){
+            copiesChanged(books, new HashSet<>(ids));
+        }
+    }
+
+    private List<Long> idsOf(Collection<Book> books) {
+        return books.stream()
+                .map(Book::getId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void copiesChanged(Collection<Book> books, Set<Long> ids) {
+        for( Book book : books ){
+            if( ids.contains(book.getId()) ){
+                readCache.evict(book);
+                changeFeed.record(ChangeEntity.BOOK, book.getId());
+            }
+        }
+    }
+
+    @Override
+    @Transactional
+    public void releaseCopy(Book book) {
+        if( book != null && book.getId() != null && bookRepository.releaseCopy(book.getId()) > 0 ){
+            readCache.evict(book);
+            changeFeed.record(ChangeEntity.BOOK, book.getId());
+        }
+    }
+
+    @Override
+    @Transactional
+    public Optional<Book> addCopies(Long id, int count) {
+        Optional<Book> book = bookRepository.findById(id);
+        if( book.isEmpty() ){
+            return book;
+        }
+        if( bookRepository.addCopies(id, count) == 0 ){
+            throw BusinessException.of(ErrorCode.COPIES_ON_LOAN);
+        }
+        readCache.evict(book.get());
+        changeFeed.record(ChangeEntity.BOOK, id);
+        return bookRepository.findById(id);
+    }
+
+    /**
+     * Deletes the entity reloaded in this transaction, not the given copy, which may come from
+     * the read cache with a stale version.
+     */
+    @Override
+    @Transactional
     public void delete(Book book) {
         if(book == null || book.getId() == null){
             throw new IllegalArgumentException("Book id cant be null");
         }
-        bookRepository.delete(book);
+        bookRepository.findById(book.getId()).ifPresent(managed -> {
+            bookRepository.delete(managed);
+            readCache.evict(managed);
+            changeFeed.record(ChangeEntity.BOOK, managed.getId());
+            isbnFilter.recordDelete(managed.getIsbn());
+        });
     }
 
+    /**
+     * Reads never trust a negative from the ISBN filter: it only knows this instance's inserts,
+     * so a book registered through another instance would be reported missing.
+     */
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn);
+        return readCache.getByIsbn(isbn, () -> bookRepository.findByIsbn(isbn));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getByIds(Collection<Long> ids) {
+        List<Book> books = new ArrayList<>(ids.size());
+        List<Long> missing = new ArrayList<>();
+        for( Long id : new LinkedHashSet<>(ids) ){
+            readCache.getIfPresent(id).ifPresentOrElse(books::add, () -> missing.add(id));
+        }
+        books.addAll(inChunks(missing, bookRepository::findAllById));
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Book> getByIsbns(Collection<String> isbns) {
+        return inChunks(new ArrayList<>(new LinkedHashSet<>(isbns)), bookRepository::findByIsbnIn);
+    }
+
+    /**
+     * Keeps each IN list within what every database accepts as bind parameters.
+     */
+    private static <K> List<Book> inChunks(List<K> keys, Function<List<K>, List<Book>> query) {
+        if( keys.isEmpty() ){
+            return List.of();
+        }
+        if( keys.size() <= LOOKUP_CHUNK_SIZE ){
+            return query.apply(keys);
+        }
+        List<Book> books = new ArrayList<>(keys.size());
+        for( int from = 0; from < keys.size(); from += LOOKUP_CHUNK_SIZE ){
+            books.addAll(query.apply(keys.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, keys.size()))));
+        }
+        return books;
     }
 }
@@ -0,0 +1,181 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.ChangeBatch;
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.example.librarywithmockito.model.ChangeRecord;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.ChangeRecordRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.service.ChangeFeedService;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ids are handed out at insert but become visible at commit, so a transaction that inserted
+ * earlier can commit after a later one. Reads stop before a gap in the ids until the change
+ * after it is older than the settle window; by then the missing id was rolled back, not pending.
+ * <p>
+ * The settle window is measured from {@code recorded_at}, which is rewritten just before the
+ * recording transaction commits, so a long transaction does not age its changes while it runs.
+ * A commit that itself takes longer than the window can still be skipped.
+ */
+@Slf4j
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private static final Object PENDING_KEY = new Object();
+
+    private final ChangeRecordRepository repository;
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final Clock clock;
+    private final Duration settle;
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public ChangeFeedServiceImpl(ChangeRecordRepository repository,
+                                 BookRepository bookRepository,
+                                 LoanRepository loanRepository,
+                                 @Value("${application.changes.settle:PT5S}") Duration settle) {
+        this(repository, bookRepository, loanRepository, Clock.systemDefaultZone(), settle);
+    }
+
+    public ChangeFeedServiceImpl(ChangeRecordRepository repository, BookRepository bookRepository,
+                                 LoanRepository loanRepository, Clock clock, Duration settle) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.clock = clock;
+        this.settle = settle;
+    }
+
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        if( repository.count() == 0 ){
+            log.info("Seeded the change log with {} books and loans", repository.seed());
+        }
+    }
+
+    @Override
+    @Transactional
+    public void record(ChangeEntity entity, Long id) {
+        if( id == null ){
+            return;
+        }
+        ChangeRecord change = repository.save(ChangeRecord.builder()
+                .entity(entity)
+                .entityId(id)
+                .recordedAt(LocalDateTime.now(clock))
+                .build());
+        completeOnCommit(change.getId());
+    }
+
+    /**
+     * Only the last change of each row in the page is kept; the position still moves past all of them.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ChangeBatch since(long since, int limit) {
+        LocalDateTime settled = LocalDateTime.now(clock).minus(settle);
+        Map<ChangeKey, ChangeRecord> latest = new LinkedHashMap<>();
+        long next = since;
+        for (ChangeRecord change : repository.findByIdGreaterThanOrderById(since, PageRequest.of(0, limit))) {
+            if( change.getId() != next + 1 && change.getRecordedAt().isAfter(settled) ){
+                break;
+            }
+            ChangeKey key = new ChangeKey(change.getEntity(), change.getEntityId());
+            latest.remove(key);
+            latest.put(key, change);
+            next = change.getId();
+        }
+        List<ChangeRecord> changes = new ArrayList<>(latest.values());
+        Map<Long, Book> books = bookRepository.findAllById(ids(changes, ChangeEntity.BOOK)).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Long> loanIds = ids(changes, ChangeEntity.LOAN);
+        Map<Long, Loan> loans = (loanIds.isEmpty() ? List.<Loan>of() : loanRepository.findWithBookByIdIn(loanIds)).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        return new ChangeBatch(changes, books, loans, next);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long latest() {
+        return repository.findLatestId();
+    }
+
+    @Override
+    public void onCommit(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    private static List<Long> ids(List<ChangeRecord> changes, ChangeEntity entity) {
+        return changes.stream()
+                .filter(change -> change.getEntity() == entity)
+                .map(ChangeRecord::getEntityId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Registered once per transaction, however many changes it records: stamps them with the
+     * commit time and notifies the listeners once it has committed.
+     */
+    @SuppressWarnings("unchecked")
+    private void completeOnCommit(Long changeId) {
+        if( !TransactionSynchronizationManager.isSynchronizationActive() ){
+            listeners.forEach(Runnable::run);
+            return;
+        }
+        List<Long> pending = (List<Long>) TransactionSynchronizationManager.getResource(PENDING_KEY);
+        if( pending != null ){
+            pending.add(changeId);
+            return;
+        }
+        List<Long> changeIds = new ArrayList<>(List.of(changeId));
+        TransactionSynchronizationManager.bindResource(PENDING_KEY, changeIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                repository.updateRecordedAt(changeIds, LocalDateTime.now(clock));
+            }
+
+            @Override
+            public void afterCommit() {
+                listeners.forEach(Runnable::run);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(PENDING_KEY);
+            }
+        });
+    }
+
+    @Data
+    static class ChangeKey {
+        private final ChangeEntity entity;
+        private final Long id;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.repository.CustomerRepository;
+import com.example.librarywithmockito.service.CustomerService;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * New customers are inserted in their own transaction, so losing the race on the unique key to
+ * a concurrent request does not poison the caller's transaction; the winner's row is used.
+ */
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private final CustomerRepository repository;
+    private final TransactionTemplate newTransaction;
+
+    public CustomerServiceImpl(CustomerRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public Customer resolve(String name, String email) {
+        List<Customer> found = repository.findByNameAndEmail(name, email);
+        if( !found.isEmpty() ){
+            return found.get(0);
+        }
+        try {
+            newTransaction.execute(status -> repository.saveAndFlush(Customer.of(name, email)));
+        } catch (DataIntegrityViolationException ex) {
+            // created concurrently, read it back below
+        }
+        return repository.findByNameAndEmail(name, email).get(0);
+    }
+}
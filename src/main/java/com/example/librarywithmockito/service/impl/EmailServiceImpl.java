@@ -7,8 +7,6 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
@@ -19,15 +17,12 @@ public class EmailServiceImpl implements EmailService {
     private final JavaMailSender javaMailSender;
 
     @Override
-    public void sendMails(String message, List<String> mailsList) {
-
-        String[] mails = mailsList.toArray(new String[mailsList.size()]);
-
+    public void sendMail(String to, String subject, String text) {
         SimpleMailMessage mailMessage = new SimpleMailMessage();
         mailMessage.setFrom(remetent);
-        mailMessage.setSubject("Livro com empréstimo atrasado");
-        mailMessage.setText(message);
-        mailMessage.setTo(mails);
+        mailMessage.setSubject(subject);
+        mailMessage.setText(text);
+        mailMessage.setTo(to);
 
         javaMailSender.send(mailMessage);
     }
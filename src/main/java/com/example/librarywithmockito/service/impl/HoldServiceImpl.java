@@ -0,0 +1,265 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.HoldStatus;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookHoldRepository;
+import com.example.librarywithmockito.service.EmailService;
+import com.example.librarywithmockito.service.HoldService;
+import com.example.librarywithmockito.util.MailTemplate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The book_hold table is the queue; each instance keeps the waiting hold ids of titles that
+ * have holds in a FIFO index, so a return hands the copy on without scanning the table. The
+ * index is only a hint: every hand-off is confirmed by a conditional update, and an index older
+ * than the TTL is reloaded so holds placed through other instances are seen.
+ */
+@Slf4j
+@Service
+public class HoldServiceImpl implements HoldService {
+
+    private final BookHoldRepository repository;
+    private final EmailService emailService;
+    private final Clock clock;
+    private final Duration indexTtl;
+    private final String readySubject;
+    private final MailTemplate readyTemplate;
+    private final ConcurrentMap<Long, HoldQueue> queues = new ConcurrentHashMap<>();
+    private final ExecutorService mailer;
+
+    @Autowired
+    public HoldServiceImpl(BookHoldRepository repository,
+                           EmailService emailService,
+                           @Value("${application.holds.index-ttl:PT1M}") Duration indexTtl,
+                           @Value("${application.holds.ready.subject}") String readySubject,
+                           @Value("${application.holds.ready.template}") String readyTemplate) {
+        this(repository, emailService, Clock.systemDefaultZone(), indexTtl, readySubject, readyTemplate);
+    }
+
+    public HoldServiceImpl(BookHoldRepository repository, EmailService emailService, Clock clock,
+                           Duration indexTtl, String readySubject, String readyTemplate) {
+        this.repository = repository;
+        this.emailService = emailService;
+        this.clock = clock;
+        this.indexTtl = indexTtl;
+        this.readySubject = readySubject;
+        this.readyTemplate = MailTemplate.compile(readyTemplate, "customer", "title");
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("hold-mail-");
+        threadFactory.setDaemon(true);
+        this.mailer = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    /**
+     * Mails still queued are dropped; their holds are already fulfilled and visible through the API.
+     */
+    @PreDestroy
+    public void shutdown() {
+        mailer.shutdownNow();
+    }
+
+    @Override
+    @Transactional
+    public BookHold place(Book book, Customer customer) {
+        if( repository.existsByBookIdAndCustomerIdAndStatus(book.getId(), customer.getId(), HoldStatus.WAITING) ){
+            throw BusinessException.of(ErrorCode.ALREADY_ON_HOLD);
+        }
+        BookHold hold = repository.save(BookHold.builder()
+                .book(book)
+                .customer(customer)
+                .status(HoldStatus.WAITING)
+                .createdAt(LocalDateTime.now(clock))
+                .build());
+        afterCommit(() -> {
+            HoldQueue queue = queues.get(book.getId());
+            if( queue != null ){
+                queue.add(hold.getId());
+            }
+        });
+        return hold;
+    }
+
+    /**
+     * A cancelled id may stay in the index; the conditional update skips it on the next hand-off.
+     */
+    @Override
+    @Transactional
+    public boolean cancel(Long id) {
+        return repository.changeStatus(id, HoldStatus.WAITING, HoldStatus.CANCELLED) > 0;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BookHold> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean hasWaiting(Book book) {
+        return book != null && book.getId() != null
+                && repository.existsByBookIdAndStatus(book.getId(), HoldStatus.WAITING);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> withWaiting(Collection<Long> bookIds) {
+        if( bookIds.isEmpty() ){
+            return Set.of();
+        }
+        return new HashSet<>(repository.findBookIdsWithStatus(bookIds, HoldStatus.WAITING));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long position(BookHold hold) {
+        if( hold.getStatus() != HoldStatus.WAITING ){
+            return 0;
+        }
+        return repository.countByBookIdAndStatusAndIdLessThan(hold.getBook().getId(), HoldStatus.WAITING, hold.getId()) + 1;
+    }
+
+    /**
+     * Polls the index until a hold is claimed. Holds not in the index yet, e.g. placed earlier in
+     * the same transaction, are found by the query that follows an empty index.
+     */
+    @Override
+    @Transactional
+    public Optional<BookHold> claimNext(Book book) {
+        Long bookId = book.getId();
+        HoldQueue queue = queue(bookId);
+        Long id;
+        while( (id = queue.poll()) != null ){
+            if( repository.changeStatus(id, HoldStatus.WAITING, HoldStatus.FULFILLED) > 0 ){
+                return claimed(repository.findById(id), bookId);
+            }
+        }
+        queues.remove(bookId, queue);
+        Optional<BookHold> head;
+        while( (head = repository.findFirstByBookIdAndStatusOrderById(bookId, HoldStatus.WAITING)).isPresent() ){
+            if( repository.changeStatus(head.get().getId(), HoldStatus.WAITING, HoldStatus.FULFILLED) > 0 ){
+                return claimed(head, bookId);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public void fulfilled(BookHold hold, Loan loan) {
+        hold.setLoanId(loan.getId());
+        repository.save(hold);
+        Customer customer = hold.getCustomer();
+        if( customer == null || customer.getEmail() == null ){
+            return;
+        }
+        String text = readyTemplate.render(name -> "customer".equals(name)
+                ? Objects.toString(customer.getName(), "")
+                : Objects.toString(hold.getBook().getTitle(), ""));
+        afterCommit(() -> mailer.execute(() -> {
+            try {
+                emailService.sendMail(customer.getEmail(), readySubject, text);
+            } catch (MailException ex) {
+                log.warn("Could not tell customer {} that hold {} was fulfilled", customer.getId(), hold.getId(), ex);
+            }
+        }));
+    }
+
+    /**
+     * The update ran as a bulk query, so a copy of the hold already in the persistence context
+     * still reads WAITING.
+     */
+    private Optional<BookHold> claimed(Optional<BookHold> hold, Long bookId) {
+        hold.ifPresent(current -> current.setStatus(HoldStatus.FULFILLED));
+        dropIndexOnRollback(bookId);
+        return hold;
+    }
+
+    private HoldQueue queue(Long bookId) {
+        long now = clock.millis();
+        HoldQueue queue = queues.get(bookId);
+        if( queue == null || now - queue.loadedAt >= indexTtl.toMillis() ){
+            queue = new HoldQueue(repository.findWaitingIds(bookId), now);
+            queues.put(bookId, queue);
+        }
+        return queue;
+    }
+
+    private void afterCommit(Runnable action) {
+        if( !TransactionSynchronizationManager.isSynchronizationActive() ){
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Ids polled from the index are gone from it even if the claim rolls back, so the index is
+     * dropped and reloaded from the table on the next hand-off.
+     */
+    private void dropIndexOnRollback(Long bookId) {
+        if( !TransactionSynchronizationManager.isSynchronizationActive() ){
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if( status != STATUS_COMMITTED ){
+                    queues.remove(bookId);
+                }
+            }
+        });
+    }
+
+    private static class HoldQueue {
+
+        private final Deque<Long> ids;
+        private final long loadedAt;
+
+        HoldQueue(Collection<Long> ids, long loadedAt) {
+            this.ids = new ArrayDeque<>(ids);
+            this.loadedAt = loadedAt;
+        }
+
+        synchronized void add(Long id) {
+            ids.addLast(id);
+        }
+
+        synchronized Long poll() {
+            return ids.pollFirst();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.service.IdempotencyService;
+import com.example.librarywithmockito.service.IdempotencyStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays the stored response of a completed request with the same key. Concurrent requests
+ * with the same key on this instance wait for the first one instead of racing it; when another
+ * instance stored its response first, that one is returned, so every retry sees the same result.
+ * <p>
+ * Store keys are the scope plus a digest of the client and its key, which keeps them within the
+ * key column whatever the client sends.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyServiceImpl(IdempotencyStore store, ObjectMapper objectMapper) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public <T> T execute(String scope, String client, String idempotencyKey, Class<T> responseType, Supplier<T> action) {
+        if( idempotencyKey == null || idempotencyKey.isBlank() ){
+            return action.get();
+        }
+        String key = scope + ":" + digest(client + '\n' + idempotencyKey);
+
+        Optional<String> stored = store.find(key);
+        if( stored.isPresent() ){
+            return read(stored.get(), responseType);
+        }
+
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(key, call);
+        if( running != null ){
+            return read(join(running), responseType);
+        }
+        try {
+            stored = store.find(key);
+            if( stored.isPresent() ){
+                call.complete(stored.get());
+                return read(stored.get(), responseType);
+            }
+            T response = action.get();
+            String body = write(response);
+            String winner = store.putIfAbsent(key, body);
+            call.complete(winner);
+            return winner.equals(body) ? response : read(winner, responseType);
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    private String join(CompletableFuture<String> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if( e.getCause() instanceof Error ){
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private static String digest(String value) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is not readable", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response can not be stored for idempotent replay", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@ConditionalOnProperty(name = "application.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Duration ttl;
+    private final Map<String, Entry> entries;
+
+    public InMemoryIdempotencyStore(@Value("${application.idempotency.ttl:PT24H}") Duration ttl,
+                                    @Value("${application.idempotency.max-entries:10000}") int maxEntries) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Optional<String> find(String key) {
+        Entry entry = entries.get(key);
+        if( entry == null ){
+            return Optional.empty();
+        }
+        if( entry.expiresAt <= System.currentTimeMillis() ){
+            entries.remove(key);
+            return Optional.empty();
+        }
+        return Optional.of(entry.body);
+    }
+
+    @Override
+    public synchronized String putIfAbsent(String key, String body) {
+        Optional<String> stored = find(key);
+        if( stored.isPresent() ){
+            return stored.get();
+        }
+        entries.put(key, new Entry(body, System.currentTimeMillis() + ttl.toMillis()));
+        return body;
+    }
+
+    private static class Entry {
+        private final String body;
+        private final long expiresAt;
+
+        private Entry(String body, long expiresAt) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.service.IsbnFilterService;
+import com.example.librarywithmockito.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Answers "might exist" for everything until the first build completes. Deleted ISBNs stay in the
+ * filter as false positives, so it is rebuilt once enough deletes or inserts past its sizing
+ * have piled up.
+ * <p>
+ * Each instance only sees its own inserts. A book registered through another instance is reported
+ * absent here until the next rebuild, which happens at least every
+ * {@code application.isbn-filter.max-age}. Such a stale negative only skips the pre-check on writes,
+ * where the unique key on {@code isbn} still rejects the duplicate; reads always go to the database.
+ */
+@Service
+public class IsbnFilterServiceImpl implements IsbnFilterService {
+
+    private static final String METRIC = "library.isbn.filter";
+
+    private final BookRepository bookRepository;
+    private final double falsePositiveRate;
+    private final long rebuildAfterDeletes;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Counter definitelyAbsent;
+    private final Counter mightExist;
+    private final Counter falsePositives;
+    private final Timer rebuilds;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private volatile long capacity;
+    private volatile long builtAt;
+    private final Object lock = new Object();
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+
+    @Autowired
+    public IsbnFilterServiceImpl(BookRepository bookRepository,
+                                 @Value("${application.isbn-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${application.isbn-filter.rebuild-after-deletes:1000}") long rebuildAfterDeletes,
+                                 @Value("${application.isbn-filter.max-age:PT5M}") Duration maxAge,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        this(bookRepository, falsePositiveRate, rebuildAfterDeletes, maxAge,
+                meterRegistry.getIfAvailable(() -> Metrics.globalRegistry), Clock.systemUTC());
+    }
+
+    public IsbnFilterServiceImpl(BookRepository bookRepository, double falsePositiveRate, long rebuildAfterDeletes,
+                                 Duration maxAge, MeterRegistry registry, Clock clock) {
+        this.bookRepository = bookRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildAfterDeletes = rebuildAfterDeletes;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.definitelyAbsent = Counter.builder(METRIC + ".checks").tag("result", "absent").register(registry);
+        this.mightExist = Counter.builder(METRIC + ".checks").tag("result", "might-exist").register(registry);
+        this.falsePositives = Counter.builder(METRIC + ".false.positives").register(registry);
+        this.rebuilds = Timer.builder(METRIC + ".rebuild").register(registry);
+        Gauge.builder(METRIC + ".expected.false.positive.rate", this,
+                service -> service.filter != null ? service.filter.expectedFalsePositiveRate() : 1.0)
+                .register(registry);
+    }
+
+    @Override
+    public boolean mightExist(String isbn) {
+        BloomFilter current = filter;
+        if( current == null || isbn == null || current.mightContain(isbn) ){
+            mightExist.increment();
+            return true;
+        }
+        definitelyAbsent.increment();
+        return false;
+    }
+
+    /**
+     * Called before the insert commits, so a rebuild reading the table right now may not see the
+     * ISBN; it is added again after the commit, into whichever filter is current by then.
+     */
+    @Override
+    public void add(String isbn) {
+        if( isbn == null ){
+            return;
+        }
+        put(isbn, true);
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(isbn, false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Under the same lock as the swap in {@link #rebuild()}, so an ISBN lands either in the filter
+     * being built or in the one that replaced it.
+     */
+    private void put(String isbn, boolean count) {
+        synchronized (lock) {
+            if( building != null ){
+                building.put(isbn);
+            }
+            if( filter != null ){
+                filter.put(isbn);
+                if( count ){
+                    added.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void recordDelete(String isbn) {
+        deleted.incrementAndGet();
+    }
+
+    @Override
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Timer.Sample sample = Timer.start();
+        long books = bookRepository.count();
+        long expected = Math.max(1_000, books * 2);
+        BloomFilter next = new BloomFilter(expected, falsePositiveRate);
+        synchronized (lock) {
+            building = next;
+        }
+        try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+            isbns.forEach(next::put);
+            synchronized (lock) {
+                capacity = expected;
+                added.set(books);
+                deleted.set(0);
+                builtAt = clock.millis();
+                filter = next;
+            }
+        } finally {
+            synchronized (lock) {
+                building = null;
+            }
+        }
+        sample.stop(rebuilds);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${application.isbn-filter.check-interval:60000}")
+    public void rebuildIfStale() {
+        if( filter != null && (deleted.get() >= rebuildAfterDeletes || added.get() > capacity
+                || clock.millis() - builtAt >= maxAge.toMillis()) ){
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.IdempotentResponse;
+import com.example.librarywithmockito.repository.IdempotentResponseRepository;
+import com.example.librarywithmockito.service.IdempotencyStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Responses are only ever inserted, never merged, so a replica that completed the same key
+ * later can not overwrite the response the client may already have been given. The insert runs
+ * in its own transaction, so losing it does not poison the caller's.
+ */
+@Service
+@ConditionalOnProperty(name = "application.idempotency.store", havingValue = "database")
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotentResponseRepository repository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate newTransaction;
+    private final Duration ttl;
+
+    public JpaIdempotencyStore(IdempotentResponseRepository repository,
+                               EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${application.idempotency.ttl:PT24H}") Duration ttl) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Optional<String> find(String key) {
+        return repository.findValid(key, LocalDateTime.now()).map(IdempotentResponse::getBody);
+    }
+
+    @Override
+    public String putIfAbsent(String key, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                entityManager.persist(IdempotentResponse.builder()
+                        .key(key)
+                        .body(body)
+                        .expiresAt(now.plus(ttl))
+                        .build());
+                entityManager.flush();
+            });
+            return body;
+        } catch (DataIntegrityViolationException | PersistenceException e) {
+            // the key is taken: another replica's response wins unless it has expired
+        }
+        if( repository.replaceExpired(key, body, now.plus(ttl), now) > 0 ){
+            return body;
+        }
+        return repository.findValid(key, now).map(IdempotentResponse::getBody).orElse(body);
+    }
+
+    @Scheduled(fixedDelayString = "${application.idempotency.purge-interval:PT5M}")
+    public void purgeExpired() {
+        repository.deleteExpired(LocalDateTime.now());
+    }
+}
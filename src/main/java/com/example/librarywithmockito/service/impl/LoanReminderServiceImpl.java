@@ -0,0 +1,218 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.LoanReminder;
+import com.example.librarywithmockito.model.LoanReminderType;
+import com.example.librarywithmockito.repository.LoanReminderRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.projection.LoanDueDate;
+import com.example.librarywithmockito.service.EmailService;
+import com.example.librarywithmockito.service.LoanReminderService;
+import com.example.librarywithmockito.util.HierarchicalTimerWheel;
+import com.example.librarywithmockito.util.MailTemplate;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Each instance keeps the reminders of active loans in a timer wheel, filled from the loan table
+ * at startup and periodically, so loans served by other instances are picked up too. The
+ * {@link LoanReminder} claim makes sure each reminder goes out once.
+ */
+@Slf4j
+@Service
+public class LoanReminderServiceImpl implements LoanReminderService {
+
+    private static final DateTimeFormatter DUE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final Duration RETRY_AFTER = Duration.ofMinutes(10);
+
+    private final LoanRepository loanRepository;
+    private final LoanReminderRepository reminderRepository;
+    private final EmailService emailService;
+    private final Clock clock;
+    private final LocalTime sendAt;
+    private final Duration catchUp;
+    private final Map<LoanReminderType, String> subjects = new EnumMap<>(LoanReminderType.class);
+    private final Map<LoanReminderType, MailTemplate> templates = new EnumMap<>(LoanReminderType.class);
+    private final HierarchicalTimerWheel<ReminderKey> wheel;
+
+    @Autowired
+    public LoanReminderServiceImpl(LoanRepository loanRepository,
+                                   LoanReminderRepository reminderRepository,
+                                   EmailService emailService,
+                                   @Value("${application.loans.reminders.tick:60000}") long tickMillis,
+                                   @Value("${application.loans.reminders.send-at:09:00}") String sendAt,
+                                   @Value("${application.loans.reminders.catch-up:P1D}") Duration catchUp,
+                                   @Value("${application.loans.reminders.due-soon.subject}") String dueSoonSubject,
+                                   @Value("${application.loans.reminders.due-soon.template}") String dueSoonTemplate,
+                                   @Value("${application.loans.reminders.overdue.subject}") String overdueSubject,
+                                   @Value("${application.loans.reminders.overdue.template}") String overdueTemplate) {
+        this(loanRepository, reminderRepository, emailService, Clock.systemDefaultZone(), tickMillis,
+                LocalTime.parse(sendAt), catchUp, dueSoonSubject, dueSoonTemplate, overdueSubject, overdueTemplate);
+    }
+
+    public LoanReminderServiceImpl(LoanRepository loanRepository, LoanReminderRepository reminderRepository,
+                                   EmailService emailService, Clock clock, long tickMillis, LocalTime sendAt,
+                                   Duration catchUp, String dueSoonSubject, String dueSoonTemplate,
+                                   String overdueSubject, String overdueTemplate) {
+        this.loanRepository = loanRepository;
+        this.reminderRepository = reminderRepository;
+        this.emailService = emailService;
+        this.clock = clock;
+        this.sendAt = sendAt;
+        this.catchUp = catchUp;
+        subjects.put(LoanReminderType.DUE_SOON, dueSoonSubject);
+        subjects.put(LoanReminderType.OVERDUE, overdueSubject);
+        templates.put(LoanReminderType.DUE_SOON, MailTemplate.compile(dueSoonTemplate, "customer", "title", "dueDate"));
+        templates.put(LoanReminderType.OVERDUE, MailTemplate.compile(overdueTemplate, "customer", "title", "dueDate"));
+        this.wheel = new HierarchicalTimerWheel<>(tickMillis, clock.millis());
+    }
+
+    /**
+     * Called inside the loan transaction: claims are dropped with it, the wheel only changes once
+     * it commits.
+     */
+    @Override
+    public void loanChanged(Loan loan) {
+        boolean returned = Boolean.TRUE.equals(loan.getReturned());
+        if( returned ){
+            reminderRepository.deleteByLoanId(loan.getId());
+        }
+        Runnable apply = returned
+                ? () -> cancel(loan.getId())
+                : () -> schedule(loan.getId(), loan.getLoanDate(), Set.of());
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Only loans recent enough to still have a reminder inside the catch-up window are read;
+     * older active loans would be skipped by {@link #schedule} anyway. Reminders already in the
+     * wheel with the same deadline are left as they are.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${application.loans.reminders.reload-interval:3600000}",
+            fixedDelayString = "${application.loans.reminders.reload-interval:3600000}")
+    public void reload() {
+        LocalDate since = LocalDate.now(clock).minusDays(ActiveLoan.LOAN_DAYS + catchUp.toDays() + 1);
+        Set<ReminderKey> sent = new HashSet<>();
+        for (LoanReminder reminder : reminderRepository.findByLoanDateSince(since)) {
+            sent.add(new ReminderKey(reminder.getLoanId(), reminder.getType()));
+        }
+        for (LoanDueDate loan : loanRepository.findDueDatesOfActiveLoansSince(since)) {
+            schedule(loan.getId(), loan.getLoanDate(), sent);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${application.loans.reminders.tick:60000}")
+    public int sendDueReminders() {
+        int sent = 0;
+        for (ReminderKey key : wheel.advance(clock.millis())) {
+            if( send(key) ){
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void schedule(Long loanId, LocalDate loanDate, Set<ReminderKey> sent) {
+        if( loanId == null || loanDate == null ){
+            return;
+        }
+        LocalDate dueDate = loanDate.plusDays(ActiveLoan.LOAN_DAYS);
+        schedule(new ReminderKey(loanId, LoanReminderType.DUE_SOON), dueDate.minusDays(1).atTime(sendAt), sent);
+        schedule(new ReminderKey(loanId, LoanReminderType.OVERDUE), dueDate.atTime(sendAt), sent);
+    }
+
+    /**
+     * Reminders missed by more than the catch-up window, e.g. while no instance was running,
+     * are skipped rather than sent late.
+     */
+    private void schedule(ReminderKey key, LocalDateTime fireAt, Set<ReminderKey> sent) {
+        long fireAtMillis = fireAt.atZone(clock.getZone()).toInstant().toEpochMilli();
+        if( sent.contains(key) || fireAtMillis < clock.millis() - catchUp.toMillis() ){
+            return;
+        }
+        wheel.schedule(key, fireAtMillis);
+    }
+
+    private void cancel(Long loanId) {
+        for (LoanReminderType type : LoanReminderType.values()) {
+            wheel.cancel(new ReminderKey(loanId, type));
+        }
+    }
+
+    private boolean send(ReminderKey key) {
+        Loan loan = loanRepository.findById(key.getLoanId()).orElse(null);
+        if( loan == null || Boolean.TRUE.equals(loan.getReturned()) || loan.getCustomerEmail() == null ){
+            return false;
+        }
+        LoanReminder claim;
+        try {
+            claim = reminderRepository.saveAndFlush(LoanReminder.builder()
+                    .loanId(key.getLoanId())
+                    .type(key.getType())
+                    .sentAt(LocalDateTime.now(clock))
+                    .build());
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+        String text = templates.get(key.getType()).render(name -> {
+            switch (name) {
+                case "customer": return Objects.toString(loan.getCustomerName(), "");
+                case "title": return loan.getBook() != null ? Objects.toString(loan.getBook().getTitle(), "") : "";
+                default: return loan.getLoanDate().plusDays(ActiveLoan.LOAN_DAYS).format(DUE_DATE_FORMAT);
+            }
+        });
+        try {
+            emailService.sendMail(loan.getCustomerEmail(), subjects.get(key.getType()), text);
+            return true;
+        } catch (MailException ex) {
+            log.warn("Could not send {} reminder of loan {}, retrying in {}", key.getType(), key.getLoanId(), RETRY_AFTER, ex);
+            reminderRepository.delete(claim);
+            wheel.schedule(key, clock.millis() + RETRY_AFTER.toMillis());
+            return false;
+        }
+    }
+
+    @Data
+    static class ReminderKey {
+        private final Long loanId;
+        private final LoanReminderType type;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.BookPopularity;
+import com.example.librarywithmockito.model.CustomerLoanHistory;
+import com.example.librarywithmockito.model.LoanEvent;
+import com.example.librarywithmockito.model.LoanEventType;
+import com.example.librarywithmockito.model.ProjectionCheckpoint;
+import com.example.librarywithmockito.repository.ActiveLoanRepository;
+import com.example.librarywithmockito.repository.BookPopularityRepository;
+import com.example.librarywithmockito.repository.CustomerLoanHistoryRepository;
+import com.example.librarywithmockito.repository.LoanEventRepository;
+import com.example.librarywithmockito.repository.ProjectionCheckpointRepository;
+import com.example.librarywithmockito.service.LoanReportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class LoanReportServiceImpl implements LoanReportService {
+
+    static final String CHECKPOINT = "loan-reports";
+
+    private final LoanEventRepository eventRepository;
+    private final ProjectionCheckpointRepository checkpointRepository;
+    private final CustomerLoanHistoryRepository historyRepository;
+    private final BookPopularityRepository popularityRepository;
+    private final ActiveLoanRepository activeLoanRepository;
+    private final Clock clock;
+    private final Duration settle;
+
+    @Autowired
+    public LoanReportServiceImpl(LoanEventRepository eventRepository,
+                                 ProjectionCheckpointRepository checkpointRepository,
+                                 CustomerLoanHistoryRepository historyRepository,
+                                 BookPopularityRepository popularityRepository,
+                                 ActiveLoanRepository activeLoanRepository,
+                                 @Value("${application.loans.projection.settle:PT1M}") Duration settle) {
+        this(eventRepository, checkpointRepository, historyRepository, popularityRepository, activeLoanRepository,
+                Clock.systemDefaultZone(), settle);
+    }
+
+    public LoanReportServiceImpl(LoanEventRepository eventRepository, ProjectionCheckpointRepository checkpointRepository,
+                                 CustomerLoanHistoryRepository historyRepository, BookPopularityRepository popularityRepository,
+                                 ActiveLoanRepository activeLoanRepository, Clock clock, Duration settle) {
+        this.eventRepository = eventRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.historyRepository = historyRepository;
+        this.popularityRepository = popularityRepository;
+        this.activeLoanRepository = activeLoanRepository;
+        this.clock = clock;
+        this.settle = settle;
+    }
+
+    /**
+     * Applies the next batch of events and moves the checkpoint in the same transaction, so a
+     * batch is either fully projected or retried as a whole.
+     * <p>
+     * Event ids are taken at insert but become visible at commit, so a lower id can show up after
+     * a higher one was read. The checkpoint stops before a gap in the ids until the event after it
+     * is older than the settle window; by then the missing id was rolled back, not pending. A loan
+     * transaction still open longer than the window after writing its event would be skipped.
+     */
+    @Override
+    @Transactional
+    public int projectEvents(int batchSize) {
+        ProjectionCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT).orElseGet(() -> {
+            eventRepository.backfill(LoanEventType.CREATED.name());
+            eventRepository.backfill(LoanEventType.RETURNED.name());
+            return ProjectionCheckpoint.builder().name(CHECKPOINT).lastEventId(0L).build();
+        });
+        List<LoanEvent> events = eventRepository.findByIdGreaterThanOrderById(
+                checkpoint.getLastEventId(), PageRequest.of(0, batchSize));
+        LocalDateTime settled = LocalDateTime.now(clock).minus(settle);
+        int applied = 0;
+        for (LoanEvent event : events) {
+            if( event.getId() != checkpoint.getLastEventId() + 1 && event.getOccurredAt().isAfter(settled) ){
+                break;
+            }
+            apply(event);
+            checkpoint.setLastEventId(event.getId());
+            applied++;
+        }
+        checkpointRepository.save(checkpoint);
+        return applied;
+    }
+
+    /**
+     * Each event holds the full loan state, so it can be applied even if an earlier event for
+     * the same loan was backfilled later in the log.
+     */
+    private void apply(LoanEvent event) {
+        CustomerLoanHistory previous = historyRepository.findById(event.getLoanId()).orElse(null);
+        boolean wasActive = previous != null && previous.getReturnDate() == null;
+        boolean active;
+        switch (event.getType()) {
+            case RETURNED:
+                active = false;
+                break;
+            case REOPENED:
+                active = true;
+                break;
+            default:
+                active = previous == null || wasActive;
+        }
+
+        historyRepository.save(CustomerLoanHistory.builder()
+                .loanId(event.getLoanId())
+                .customer(event.getCustomer())
+                .bookId(event.getBookId())
+                .loanDate(event.getLoanDate())
+                .returnDate(active ? null : returnDateOf(event, previous))
+                .build());
+
+        if( active ){
+            activeLoanRepository.save(ActiveLoan.builder()
+                    .loanId(event.getLoanId())
+                    .bookId(event.getBookId())
+                    .customer(event.getCustomer())
+                    .customerEmail(event.getCustomerEmail())
+                    .loanDate(event.getLoanDate())
+                    .shardKey(ActiveLoan.shardKey(event.getCustomerEmail(), event.getCustomer()))
+                    .build());
+        } else if( wasActive ){
+            activeLoanRepository.deleteById(event.getLoanId());
+        }
+
+        if( event.getBookId() != null ){
+            BookPopularity popularity = popularityRepository.findById(event.getBookId())
+                    .orElseGet(() -> BookPopularity.builder().bookId(event.getBookId()).build());
+            if( previous == null ){
+                popularity.setTotalLoans(popularity.getTotalLoans() + 1);
+                if( popularity.getLastLoanDate() == null
+                        || (event.getLoanDate() != null && event.getLoanDate().isAfter(popularity.getLastLoanDate())) ){
+                    popularity.setLastLoanDate(event.getLoanDate());
+                }
+            }
+            popularity.setActiveLoans(popularity.getActiveLoans() + (active ? 1 : 0) - (wasActive ? 1 : 0));
+            popularityRepository.save(popularity);
+        }
+    }
+
+    private static LocalDate returnDateOf(LoanEvent event, CustomerLoanHistory previous) {
+        if( event.getReturnDate() != null ){
+            return event.getReturnDate();
+        }
+        return previous != null && previous.getReturnDate() != null ? previous.getReturnDate() : LocalDate.now();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CustomerLoanHistory> getCustomerHistory(String customer, Pageable pageable) {
+        return historyRepository.findByCustomerOrderByLoanDateDesc(customer, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<BookPopularity> getMostPopularBooks(int limit) {
+        return popularityRepository.findAllByOrderByTotalLoansDesc(PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ActiveLoan> getLateLoans(Pageable pageable) {
+        return activeLoanRepository.findByLoanDateLessThanEqualOrderByLoanDate(lateLoanCutoff(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ActiveLoan> getLateLoans(int shard, int shardCount) {
+        return activeLoanRepository.findByLoanDateLessThanEqualInShard(lateLoanCutoff(), shard, shardCount);
+    }
+
+    private static LocalDate lateLoanCutoff() {
+        return LocalDate.now().minusDays(ActiveLoan.LOAN_DAYS);
+    }
+}
@@ -2,51 +2,322 @@ package com.example.librarywithmockito.service.impl;
 
 import com.example.librarywithmockito.api.resource.dto.LoanFilterDTO;
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.example.librarywithmockito.model.CheckoutItem;
+import com.example.librarywithmockito.model.CheckoutStatus;
+import com.example.librarywithmockito.model.Customer;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.LoanArchive;
+import com.example.librarywithmockito.model.LoanEvent;
+import com.example.librarywithmockito.model.LoanEventType;
+import com.example.librarywithmockito.repository.LoanArchiveRepository;
+import com.example.librarywithmockito.repository.LoanEventRepository;
 import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
+import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.ChangeFeedService;
+import com.example.librarywithmockito.service.CustomerService;
+import com.example.librarywithmockito.service.HoldService;
+import com.example.librarywithmockito.service.LoanReminderService;
 import com.example.librarywithmockito.service.LoanService;
+import com.example.librarywithmockito.service.PopularBooksService;
+import com.example.librarywithmockito.service.retry.RetryOnConflict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
     private LoanRepository repository;
+    private BookService bookService;
+    private LoanArchiveRepository archiveRepository;
+    private LoanEventRepository eventRepository;
+    private PopularBooksService popularBooksService;
+    private LoanReminderService reminderService;
+    private CustomerService customerService;
+    private HoldService holdService;
+    private ChangeFeedService changeFeed;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository,
+                           BookService bookService,
+                           LoanArchiveRepository archiveRepository,
+                           LoanEventRepository eventRepository,
+                           PopularBooksService popularBooksService,
+                           LoanReminderService reminderService,
+                           CustomerService customerService,
+                           HoldService holdService,
+                           ChangeFeedService changeFeed) {
         this.repository = repository;
+        this.bookService = bookService;
+        this.archiveRepository = archiveRepository;
+        this.eventRepository = eventRepository;
+        this.popularBooksService = popularBooksService;
+        this.reminderService = reminderService;
+        this.customerService = customerService;
+        this.holdService = holdService;
+        this.changeFeed = changeFeed;
     }
 
     @Override
+    @Transactional
     public Loan save( Loan loan ) {
-        if( repository.existsByBookAndNotReturned(loan.getBook()) ){
-            throw new BusinessException("Book already loaned");
+        if( holdService.hasWaiting(loan.getBook()) ){
+            throw BusinessException.of(ErrorCode.BOOK_ON_HOLD);
         }
-        return repository.save(loan);
+        if( !bookService.claimCopy(loan.getBook()) ){
+            throw BusinessException.of(ErrorCode.BOOK_ALREADY_LOANED);
+        }
+        Customer customer = loan.getCustomer();
+        if( customer != null && customer.getId() == null ){
+            loan.setCustomer(customerService.resolve(customer.getName(), customer.getEmail()));
+        }
+        return created(repository.save(loan));
+    }
+
+    private Loan created(Loan saved) {
+        eventRepository.save(LoanEvent.of(saved, LoanEventType.CREATED));
+        changeFeed.record(ChangeEntity.LOAN, saved.getId());
+        popularBooksService.recordLoan(saved.getBook() != null ? saved.getBook().getId() : null);
+        reminderService.loanChanged(saved);
+        return saved;
+    }
+
+    /**
+     * New copies go to waiting holds first; only what is left reaches the shelf.
+     */
+    @Override
+    @Transactional
+    public Optional<Book> addCopies(Long bookId, int count) {
+        Optional<Book> book = bookService.addCopies(bookId, count);
+        book.ifPresent(current -> {
+            int handedOff = 0;
+            while( handedOff < count && bookService.claimCopy(current) ){
+                if( !handOff(current) ){
+                    bookService.releaseCopy(current);
+                    break;
+                }
+                handedOff++;
+            }
+            current.setAvailableCopies(current.getAvailableCopies() - handedOff);
+        });
+        return book;
+    }
+
+    /**
+     * The whole list costs a constant number of statements: one query resolves the books, one
+     * finds those with waiting holds and the free copies of the rest are claimed together (see
+     * {@link BookService#claimCopies}). The new loans go to the database as a single JDBC batch.
+     */
+    @Override
+    @Transactional
+    public List<CheckoutItem> checkout(String customer, String customerEmail, List<String> isbns, boolean allowPartial) {
+        Map<String, Book> books = bookService.getByIsbns(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        Set<Long> onHold = holdService.withWaiting(books.values().stream().map(Book::getId).collect(Collectors.toList()));
+        Set<Long> claimed = bookService.claimCopies(books.values().stream()
+                .filter(book -> !onHold.contains(book.getId()))
+                .collect(Collectors.toList()));
+
+        List<CheckoutStatus> statuses = new ArrayList<>(isbns.size());
+        Set<String> seen = new HashSet<>();
+        boolean failed = false;
+        for (String isbn : isbns) {
+            Book book = books.get(isbn);
+            CheckoutStatus status = !seen.add(isbn) ? CheckoutStatus.DUPLICATED
+                    : book == null ? CheckoutStatus.BOOK_NOT_FOUND
+                    : onHold.contains(book.getId()) ? CheckoutStatus.ON_HOLD
+                    : !claimed.contains(book.getId()) ? CheckoutStatus.ALREADY_LOANED
+                    : CheckoutStatus.LOANED;
+            failed |= status != CheckoutStatus.LOANED && status != CheckoutStatus.DUPLICATED;
+            statuses.add(status);
+        }
+
+        List<CheckoutItem> items = new ArrayList<>(isbns.size());
+        if( failed && !allowPartial ){
+            bookService.releaseCopies(books.values().stream()
+                    .filter(book -> claimed.contains(book.getId()))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < isbns.size(); i++) {
+                CheckoutStatus status = statuses.get(i) == CheckoutStatus.LOANED ? CheckoutStatus.NOT_PROCESSED : statuses.get(i);
+                items.add(new CheckoutItem(isbns.get(i), status, null));
+            }
+            return items;
+        }
+
+        Customer borrower = customerService.resolve(customer, customerEmail);
+        LocalDate today = LocalDate.now();
+        Map<String, Loan> loans = new LinkedHashMap<>();
+        for (int i = 0; i < isbns.size(); i++) {
+            if( statuses.get(i) == CheckoutStatus.LOANED ){
+                loans.put(isbns.get(i), Loan.builder()
+                        .book(books.get(isbns.get(i)))
+                        .customer(borrower)
+                        .loanDate(today)
+                        .build());
+            }
+        }
+        repository.saveAll(new ArrayList<>(loans.values())).forEach(this::created);
+        for (int i = 0; i < isbns.size(); i++) {
+            CheckoutStatus status = statuses.get(i);
+            items.add(new CheckoutItem(isbns.get(i), status, status == CheckoutStatus.LOANED ? loans.get(isbns.get(i)) : null));
+        }
+        return items;
+    }
+
+    /**
+     * The hold is placed before the copy count is checked again, so a copy returned in between
+     * either finds the hold in the queue or is claimed here.
+     */
+    @Override
+    @Transactional
+    public BookHold hold(Book book, String customer, String customerEmail) {
+        BookHold hold = holdService.place(book, customerService.resolve(customer, customerEmail));
+        if( bookService.claimCopy(book) && !handOff(book) ){
+            bookService.releaseCopy(book);
+        }
+        return hold;
+    }
+
+    /**
+     * Loans a copy the caller already holds to the oldest waiting hold, if any; the copy never
+     * goes back on the shelf in between.
+     */
+    private boolean handOff(Book book) {
+        Optional<BookHold> next = holdService.claimNext(book);
+        if( next.isEmpty() ){
+            return false;
+        }
+        BookHold hold = next.get();
+        Loan loan = created(repository.save(Loan.builder()
+                .book(book)
+                .customer(hold.getCustomer())
+                .loanDate(LocalDate.now())
+                .build()));
+        holdService.fulfilled(hold, loan);
+        return true;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        LoanEventType change = null;
+        if( Boolean.TRUE.equals(loan.getReturned()) ){
+            if( loan.getReturnDate() == null ){
+                loan.setReturnDate(LocalDate.now());
+                change = LoanEventType.RETURNED;
+            }
+        } else if( loan.getReturnDate() != null ){
+            if( !bookService.claimCopy(loan.getBook()) ){
+                throw BusinessException.of(ErrorCode.BOOK_ALREADY_LOANED);
+            }
+            loan.setReturnDate(null);
+            change = LoanEventType.REOPENED;
+        }
+        Loan saved = repository.save(loan);
+        changeFeed.record(ChangeEntity.LOAN, saved.getId());
+        if( change != null ){
+            eventRepository.save(LoanEvent.of(saved, change));
+            reminderService.loanChanged(saved);
+        }
+        if( change == LoanEventType.RETURNED && !handOff(saved.getBook()) ){
+            bookService.releaseCopy(saved.getBook());
+        }
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict("loan.update")
+    public Optional<Loan> update(Long id, Consumer<Loan> changes) {
+        return repository.findById(id).map(loan -> {
+            changes.accept(loan);
+            return update(loan);
+        });
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
         return repository.findByBook(book, pageable);
     }
 
+    /**
+     * Hot loans come first, then the archive, each in id order; only the slice of each that
+     * overlaps the requested page is read. The merged order is fixed, so any other sort is
+     * rejected.
+     * <p>
+     * The two counts and the two slices read one snapshot: archiving moves loans between the
+     * tables, and under read committed a loan moved in between would be skipped or listed twice.
+     */
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public Page<Loan> getLoansByBook(Book book, Pageable pageable, boolean includeArchived) {
+        if( !includeArchived ){
+            return getLoansByBook(book, pageable);
+        }
+        if( pageable.getSort().isSorted() && !pageable.getSort().equals(Sort.by("id")) ){
+            throw BusinessException.of(ErrorCode.UNSUPPORTED_HISTORY_SORT);
+        }
+        long hot = repository.countByBook(book);
+        long archived = archiveRepository.countByBook(book);
+
+        long offset = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<Loan> content = new ArrayList<>(size);
+        if( offset < hot ){
+            content.addAll(repository.findByBookOrderById(book, PageRequest.of(pageable.getPageNumber(), size)));
+        }
+        int remaining = size - content.size();
+        if( remaining > 0 && archived > 0 ){
+            long archiveOffset = Math.max(0, offset - hot);
+            archiveRepository.findSliceByBook(book.getId(), archiveOffset, remaining)
+                    .forEach(archive -> content.add(archive.toLoan()));
+        }
+        return new PageImpl<>(content, pageable, hot + archived);
+    }
+
+    @Override
+    @Transactional
+    public int archiveReturnedLoans(LocalDate returnedBefore, int batchSize) {
+        List<Loan> batch = repository.findReturnedBefore(returnedBefore, PageRequest.of(0, batchSize));
+        if( batch.isEmpty() ){
+            return 0;
+        }
+        archiveRepository.saveAll(batch.stream().map(LoanArchive::of).collect(Collectors.toList()));
+        repository.deleteAllInBatch(batch);
+        batch.forEach(loan -> changeFeed.record(ChangeEntity.LOAN, loan.getId()));
+        return batch.size();
+    }
+
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
         final Integer loanDays = 4;
         LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays);
@@ -54,7 +325,20 @@ public class LoanServiceImpl implements LoanService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO dto, Pageable pageRequest) {
         return repository.findByBookIsbnOrCustomer( dto.getIsbn(), dto.getCustomer(), pageRequest );
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LoanSummary> findSummaries(LoanFilterDTO dto, Pageable pageRequest) {
+        return repository.findSummaryByBookIsbnOrCustomer( dto.getIsbn(), dto.getCustomer(), pageRequest );
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<LoanSummary> getLoanSummariesByBook(Book book, Pageable pageable) {
+        return repository.findSummaryByBookId(book.getId(), pageable);
+    }
 }
@@ -0,0 +1,133 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.projection.BookLoanCount;
+import com.example.librarywithmockito.service.PopularBooksService;
+import com.example.librarywithmockito.util.WindowedTopK;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Counts live in memory, per instance. Each instance sees only the loans it served, so the
+ * ranking is rebuilt from the database at startup and periodically to converge.
+ * <p>
+ * The database only keeps the loan date, so rebuilt counts sit at the start of their day and
+ * windows shorter than a day are rejected. Loans recorded while a rebuild runs are written to
+ * both rankings; one committed between the start of the rebuild and its query is counted twice
+ * until the next rebuild, which is preferred to losing it.
+ */
+@Service
+public class PopularBooksServiceImpl implements PopularBooksService {
+
+    private final LoanRepository loanRepository;
+    private final Clock clock;
+    private final Duration bucket;
+    private final Duration retention;
+    private final int candidatesPerBucket;
+    private final double epsilon;
+    private final double delta;
+    private final Object lock = new Object();
+    private volatile WindowedTopK topK;
+    private WindowedTopK building;
+
+    @Autowired
+    public PopularBooksServiceImpl(LoanRepository loanRepository,
+                                   @Value("${application.books.popular.bucket:PT1H}") Duration bucket,
+                                   @Value("${application.books.popular.retention:P30D}") Duration retention,
+                                   @Value("${application.books.popular.candidates-per-bucket:200}") int candidatesPerBucket,
+                                   @Value("${application.books.popular.epsilon:0.005}") double epsilon,
+                                   @Value("${application.books.popular.delta:0.01}") double delta) {
+        this(loanRepository, Clock.systemDefaultZone(), bucket, retention, candidatesPerBucket, epsilon, delta);
+    }
+
+    PopularBooksServiceImpl(LoanRepository loanRepository, Clock clock, Duration bucket, Duration retention,
+                            int candidatesPerBucket, double epsilon, double delta) {
+        this.loanRepository = loanRepository;
+        this.clock = clock;
+        this.bucket = bucket;
+        this.retention = retention;
+        this.candidatesPerBucket = candidatesPerBucket;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.topK = newTopK();
+    }
+
+    /**
+     * Counted once the surrounding transaction commits, so rolled back loans are never ranked.
+     */
+    @Override
+    public void recordLoan(Long bookId) {
+        if( bookId == null ){
+            return;
+        }
+        if( TransactionSynchronizationManager.isSynchronizationActive() ){
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count(bookId);
+                }
+            });
+        } else {
+            count(bookId);
+        }
+    }
+
+    @Override
+    public WindowedTopK.Snapshot getMostBorrowed(Duration window, int limit) {
+        return topK.top(limit, window, clock.millis());
+    }
+
+    @Override
+    public Duration minWindow() {
+        return Duration.ofDays(1);
+    }
+
+    @Override
+    public Duration maxWindow() {
+        return retention;
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${application.books.popular.rebuild-interval:3600000}",
+            fixedDelayString = "${application.books.popular.rebuild-interval:3600000}")
+    public void rebuild() {
+        WindowedTopK rebuilt = newTopK();
+        synchronized (lock) {
+            building = rebuilt;
+        }
+        LocalDate since = LocalDate.now(clock).minusDays(retention.toDays());
+        for (BookLoanCount count : loanRepository.countLoansByBookAndDaySince(since)) {
+            long loanedAt = count.getLoanDate().atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+            rebuilt.add(count.getBookId(), count.getLoans(), loanedAt);
+        }
+        synchronized (lock) {
+            topK = rebuilt;
+            building = null;
+        }
+    }
+
+    private void count(Long bookId) {
+        long now = clock.millis();
+        synchronized (lock) {
+            topK.add(bookId, 1, now);
+            if( building != null ){
+                building.add(bookId, 1, now);
+            }
+        }
+    }
+
+    private WindowedTopK newTopK() {
+        return new WindowedTopK(bucket, retention, candidatesPerBucket, epsilon, delta);
+    }
+}
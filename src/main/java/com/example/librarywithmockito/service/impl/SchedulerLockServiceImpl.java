@@ -0,0 +1,65 @@
+package com.example.librarywithmockito.service.impl;
+
+import com.example.librarywithmockito.repository.SchedulerLockRepository;
+import com.example.librarywithmockito.service.SchedulerLockService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lease based lock kept in the shared database, so replicas can coordinate scheduled jobs
+ * without an external coordinator. A lease expires on its own if its owner dies mid-run.
+ */
+@Service
+public class SchedulerLockServiceImpl implements SchedulerLockService {
+
+    private final SchedulerLockRepository repository;
+    private final String owner;
+    private final Map<String, LocalDateTime> acquiredAt = new ConcurrentHashMap<>();
+
+    public SchedulerLockServiceImpl(SchedulerLockRepository repository,
+                                    @Value("${application.scheduler.instance-id:${random.uuid}}") String owner) {
+        this.repository = repository;
+        this.owner = owner;
+    }
+
+    @Override
+    public boolean tryLock(String name, Duration lockAtMostFor) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lockUntil = now.plus(lockAtMostFor);
+
+        boolean locked = repository.acquire(name, owner, now, lockUntil) > 0
+                || createLock(name, now, lockUntil);
+        if( locked ){
+            acquiredAt.put(name, now);
+        }
+        return locked;
+    }
+
+    @Override
+    public void unlock(String name, Duration lockAtLeastFor) {
+        LocalDateTime lockedAt = acquiredAt.remove(name);
+        if( lockedAt == null ){
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime minimum = lockedAt.plus(lockAtLeastFor);
+        repository.release(name, owner, minimum.isAfter(now) ? minimum : now);
+    }
+
+    private boolean createLock(String name, LocalDateTime now, LocalDateTime lockUntil) {
+        if( repository.existsById(name) ){
+            return false;
+        }
+        try {
+            return repository.create(name, owner, now, lockUntil) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+}
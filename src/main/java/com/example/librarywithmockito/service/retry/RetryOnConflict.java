@@ -0,0 +1,20 @@
+package com.example.librarywithmockito.service.retry;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-runs the method when its transaction loses an optimistic lock race. The method must
+ * start its own transaction and re-read what it changes, otherwise a retry replays stale state.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Name used to tag the conflict metrics.
+     */
+    String value();
+}
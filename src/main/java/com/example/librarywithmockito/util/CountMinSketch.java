@@ -0,0 +1,84 @@
+package com.example.librarywithmockito.util;
+
+/**
+ * Count-min sketch over long keys. With {@code width = ceil(e / epsilon)} and
+ * {@code depth = ceil(ln(1 / delta))} an estimate never undercounts and exceeds the true count
+ * by more than {@code epsilon * total()} with probability at most {@code delta}.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final double epsilon;
+    private final double delta;
+    private final int[][] counts;
+    private long total;
+
+    public CountMinSketch(double epsilon, double delta) {
+        if( epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1 ){
+            throw new IllegalArgumentException("epsilon and delta must be in (0, 1)");
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) Math.ceil(Math.E / epsilon);
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.counts = new int[depth][width];
+    }
+
+    public long add(long key, int count) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int[] cells = counts[row];
+            int index = index(key, row);
+            cells[index] += count;
+            estimate = Math.min(estimate, cells[index]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][index(key, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the other sketch's counts into this one; both must have been built with the same bounds.
+     */
+    public void merge(CountMinSketch other) {
+        if( other.width != width || other.depth != depth ){
+            throw new IllegalArgumentException("Sketches have different dimensions");
+        }
+        for (int row = 0; row < depth; row++) {
+            for (int column = 0; column < width; column++) {
+                counts[row][column] += other.counts[row][column];
+            }
+        }
+        total += other.total;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public double epsilon() {
+        return epsilon;
+    }
+
+    public double delta() {
+        return delta;
+    }
+
+    private int index(long key, int row) {
+        return (int) Long.remainderUnsigned(mix(key + (row + 1) * 0x9E3779B97F4A7C15L), width);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
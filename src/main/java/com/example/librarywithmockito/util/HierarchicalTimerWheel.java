@@ -0,0 +1,153 @@
+package com.example.librarywithmockito.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed hierarchical timer wheel. Level {@code n} has 64 slots of {@code 64^n} ticks each; a
+ * timer sits in the lowest level whose span covers its deadline and is moved one level down
+ * whenever the slot it sits in comes due. Advancing one tick touches one slot per level, so the
+ * cost follows the number of expiring timers, not the number scheduled.
+ * <p>
+ * Scheduling a key again replaces its previous deadline, or does nothing if the deadline falls
+ * on the same tick. Cancelled and replaced timers are dropped lazily when their slot is visited.
+ */
+public class HierarchicalTimerWheel<K> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final List<List<Timer<K>>> wheels = new ArrayList<>(LEVELS * SLOTS);
+    private final List<Timer<K>> overflow = new ArrayList<>();
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+    private long currentTick;
+
+    public HierarchicalTimerWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            wheels.add(new ArrayList<>());
+        }
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick, ceilDiv(deadlineMillis, tickMillis));
+        Timer<K> previous = timers.get(key);
+        if( previous != null && previous.deadlineTick == deadlineTick ){
+            return;
+        }
+        if( previous != null ){
+            previous.cancelled = true;
+        }
+        Timer<K> timer = new Timer<>(key, deadlineTick);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Timer<K> timer = timers.remove(key);
+        if( timer == null ){
+            return false;
+        }
+        timer.cancelled = true;
+        return true;
+    }
+
+    public synchronized int size() {
+        return timers.size();
+    }
+
+    /**
+     * Timers held in slots, including cancelled ones not dropped yet.
+     */
+    synchronized int slotted() {
+        return wheels.stream().mapToInt(List::size).sum() + overflow.size();
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns the keys whose deadline has passed,
+     * in deadline order.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        fire(currentTick, expired);
+        while( currentTick < targetTick ){
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if( (currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0 ){
+                    cascade(level);
+                }
+            }
+            fire(currentTick, expired);
+        }
+        return expired;
+    }
+
+    private void fire(long tick, List<K> expired) {
+        List<Timer<K>> slot = wheels.get((int) (tick & MASK));
+        if( slot.isEmpty() ){
+            return;
+        }
+        List<Timer<K>> due = new ArrayList<>(slot);
+        slot.clear();
+        for (Timer<K> timer : due) {
+            if( timer.cancelled ){
+                continue;
+            }
+            if( timer.deadlineTick > tick ){
+                place(timer);
+            } else {
+                timers.remove(timer.key);
+                expired.add(timer.key);
+            }
+        }
+    }
+
+    private void cascade(int level) {
+        List<Timer<K>> slot = wheels.get(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & MASK));
+        List<Timer<K>> moved = new ArrayList<>(slot);
+        slot.clear();
+        if( level == LEVELS - 1 ){
+            moved.addAll(overflow);
+            overflow.clear();
+        }
+        for (Timer<K> timer : moved) {
+            if( !timer.cancelled ){
+                place(timer);
+            }
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        long delta = timer.deadlineTick - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if( delta < 1L << (SLOT_BITS * (level + 1)) ){
+                int slot = (int) ((timer.deadlineTick >>> (SLOT_BITS * level)) & MASK);
+                wheels.get(level * SLOTS + slot).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    private static class Timer<K> {
+        private final K key;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        private Timer(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.librarywithmockito.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Text with {@code {name}} placeholders, split into literals and placeholders once so rendering
+ * is a single append pass. Unknown placeholders fail at compile time, i.e. on startup.
+ */
+public final class MailTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+
+    private MailTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+    }
+
+    public static MailTemplate compile(String template, String... allowedNames) {
+        List<String> allowed = Arrays.asList(allowedNames);
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int position = 0;
+        int open;
+        while( (open = template.indexOf('{', position)) >= 0 ){
+            int close = template.indexOf('}', open);
+            if( close < 0 ){
+                break;
+            }
+            String name = template.substring(open + 1, close);
+            if( !allowed.contains(name) ){
+                throw new IllegalArgumentException("Unknown placeholder {" + name + "}, expected one of " + allowed);
+            }
+            literals.add(template.substring(position, open));
+            names.add(name);
+            position = close + 1;
+        }
+        literals.add(template.substring(position));
+        return new MailTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    public void renderTo(StringBuilder out, Function<String, String> values) {
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]).append(values.apply(names[i]));
+        }
+        out.append(literals[names.length]);
+    }
+
+    public String render(Function<String, String> values) {
+        StringBuilder out = new StringBuilder();
+        renderTo(out, values);
+        return out.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.librarywithmockito.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one load per key at a time. Callers that arrive while a load is in flight wait
+ * for it and receive the same value, or the same exception, instead of starting their own.
+ * Nothing is kept once the load finishes; the next caller for the key starts a new one.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder leaders = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, call);
+        if( inFlight != null ){
+            coalesced.increment();
+            return await(inFlight);
+        }
+        leaders.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            call.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException ex) {
+            if( ex.getCause() instanceof RuntimeException ){
+                throw (RuntimeException) ex.getCause();
+            }
+            if( ex.getCause() instanceof Error ){
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    public int inFlight() {
+        return calls.size();
+    }
+
+    /** Loads actually started. */
+    public long leaders() {
+        return leaders.sum();
+    }
+
+    /** Calls that shared a load started by someone else. */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.librarywithmockito.util;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heavy hitters over a sliding window. Time is cut into buckets, each holding a count-min sketch
+ * and its own top candidates; a query merges the sketches of the buckets in the window and ranks
+ * the union of their candidates. Windows are rounded up to whole buckets.
+ */
+public class WindowedTopK {
+
+    private final long bucketMillis;
+    private final int candidatesPerBucket;
+    private final double epsilon;
+    private final double delta;
+    private final Bucket[] buckets;
+
+    public WindowedTopK(Duration bucket, Duration retention, int candidatesPerBucket, double epsilon, double delta) {
+        this.bucketMillis = bucket.toMillis();
+        this.candidatesPerBucket = candidatesPerBucket;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.buckets = new Bucket[(int) Math.max(1, (retention.toMillis() + bucketMillis - 1) / bucketMillis)];
+    }
+
+    public synchronized void add(long key, int count, long timestampMillis) {
+        long index = Math.floorDiv(timestampMillis, bucketMillis);
+        int slot = (int) Math.floorMod(index, (long) buckets.length);
+        Bucket bucket = buckets[slot];
+        if( bucket == null || bucket.index < index ){
+            bucket = new Bucket(index, new CountMinSketch(epsilon, delta));
+            buckets[slot] = bucket;
+        } else if( bucket.index > index ){
+            return;
+        }
+        long estimate = bucket.sketch.add(key, count);
+        bucket.offer(key, estimate, candidatesPerBucket);
+    }
+
+    public synchronized Snapshot top(int limit, Duration window, long nowMillis) {
+        long last = Math.floorDiv(nowMillis, bucketMillis);
+        long windowBuckets = Math.min(buckets.length, (window.toMillis() + bucketMillis - 1) / bucketMillis);
+        CountMinSketch merged = new CountMinSketch(epsilon, delta);
+        Set<Long> candidates = new HashSet<>();
+        for (Bucket bucket : buckets) {
+            if( bucket != null && bucket.index <= last && bucket.index > last - windowBuckets ){
+                merged.merge(bucket.sketch);
+                candidates.addAll(bucket.candidates.keySet());
+            }
+        }
+        List<Entry> entries = new ArrayList<>(candidates.size());
+        for (Long key : candidates) {
+            entries.add(new Entry(key, merged.estimate(key)));
+        }
+        entries.sort(Comparator.comparingLong(Entry::getCount).reversed().thenComparingLong(Entry::getKey));
+        return new Snapshot(
+                new ArrayList<>(entries.subList(0, Math.min(limit, entries.size()))),
+                merged.total(),
+                epsilon,
+                delta);
+    }
+
+    public Duration retention() {
+        return Duration.ofMillis(bucketMillis * buckets.length);
+    }
+
+    public Duration bucket() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    private static class Bucket {
+        private final long index;
+        private final CountMinSketch sketch;
+        private final Map<Long, Long> candidates = new HashMap<>();
+
+        private Bucket(long index, CountMinSketch sketch) {
+            this.index = index;
+            this.sketch = sketch;
+        }
+
+        private void offer(long key, long estimate, int capacity) {
+            if( candidates.containsKey(key) || candidates.size() < capacity ){
+                candidates.put(key, estimate);
+                return;
+            }
+            Map.Entry<Long, Long> weakest = null;
+            for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+                if( weakest == null || candidate.getValue() < weakest.getValue() ){
+                    weakest = candidate;
+                }
+            }
+            if( weakest.getValue() < estimate ){
+                candidates.remove(weakest.getKey());
+                candidates.put(key, estimate);
+            }
+        }
+    }
+
+    @Value
+    public static class Entry {
+        long key;
+        long count;
+    }
+
+    /**
+     * Each count is an upper bound: it exceeds the true count by at most {@code epsilon * total}
+     * with probability {@code 1 - delta}.
+     */
+    @Value
+    public static class Snapshot {
+        List<Entry> entries;
+        long total;
+        double epsilon;
+        double delta;
+
+        public long getMaxOvercount() {
+            return (long) Math.ceil(epsilon * total);
+        }
+    }
+}
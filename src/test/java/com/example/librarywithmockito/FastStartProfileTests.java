@@ -0,0 +1,26 @@
+package com.example.librarywithmockito;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("fast-start")
+class FastStartProfileTests {
+
+    @Autowired
+    ConfigurableApplicationContext context;
+
+    @Test
+    void scheduledBeansAreCreatedEagerly() {
+        var beanFactory = context.getBeanFactory();
+
+        assertThat(beanFactory.containsSingleton("scheduleService")).isTrue();
+        assertThat(beanFactory.containsSingleton("bookController")).isFalse();
+    }
+
+}
@@ -1,10 +1,17 @@
 package com.example.librarywithmockito.api.resource;
 
+import com.example.librarywithmockito.api.resource.dto.BookCopiesDTO;
 import com.example.librarywithmockito.api.resource.dto.BookDto;
+import com.example.librarywithmockito.api.resource.dto.BookLookupDTO;
 import com.example.librarywithmockito.exception.BusinessException;
 import com.example.librarywithmockito.model.Book;
 import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.IdempotencyService;
 import com.example.librarywithmockito.service.LoanService;
+import com.example.librarywithmockito.service.PopularBooksService;
+import com.example.librarywithmockito.service.impl.IdempotencyServiceImpl;
+import com.example.librarywithmockito.service.impl.InMemoryIdempotencyStore;
+import com.example.librarywithmockito.util.WindowedTopK;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -21,17 +29,23 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
+@Import({IdempotencyServiceImpl.class, InMemoryIdempotencyStore.class})
 @AutoConfigureMockMvc
 public class BookControllerTest {
 
@@ -46,6 +60,9 @@ public class BookControllerTest {
     @MockBean
     LoanService loanService;
 
+    @MockBean
+    PopularBooksService popularBooksService;
+
     @Test
     @DisplayName("Deve criar um livro com suceso")
     public void createBookTest() throws Exception {
@@ -72,6 +89,57 @@ public class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve repetir a resposta de um cadastro já realizado com a mesma chave de idempotência")
+    public void replayedCreateBookTest() throws Exception {
+
+        BookDto bookDto = getBookDto();
+        var savedBook = Book.builder().id(10L).author("Ederson").title("Lalalala").isbn("001").build();
+        BDDMockito.given(bookService.save(any(Book.class))).willReturn(savedBook);
+        String json = new ObjectMapper().writeValueAsString(bookDto);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .post(BOOK_API)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "retry-book-1")
+                    .content(json);
+            mvc
+                    .perform(request)
+                    .andExpect( status().isCreated() )
+                    .andExpect( jsonPath("id").value(10L) )
+                    .andExpect( jsonPath("isbn").value(bookDto.getIsbn()) );
+        }
+
+        verify(bookService, times(1)).save(any(Book.class));
+    }
+
+    @Test
+    @DisplayName("Não deve repetir a resposta de outro cliente que usou a mesma chave de idempotência")
+    public void idempotencyKeyScopedPerClientTest() throws Exception {
+
+        BookDto bookDto = getBookDto();
+        var savedBook = Book.builder().id(10L).author("Ederson").title("Lalalala").isbn("001").build();
+        BDDMockito.given(bookService.save(any(Book.class))).willReturn(savedBook);
+        String json = new ObjectMapper().writeValueAsString(bookDto);
+
+        for (String address : List.of("10.0.0.1", "10.0.0.2")) {
+            MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                    .post(BOOK_API)
+                    .with(req -> { req.setRemoteAddr(address); return req; })
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "shared-key")
+                    .content(json);
+            mvc
+                    .perform(request)
+                    .andExpect( status().isCreated() );
+        }
+
+        verify(bookService, times(2)).save(any(Book.class));
+    }
+
     private BookDto getBookDto() {
         BookDto bookDto = BookDto.builder().author("Ederson").title("Lalalala").isbn("001").build();
         return bookDto;
@@ -198,10 +266,8 @@ public class BookControllerTest {
         var id = 1L;
         String json = new ObjectMapper().writeValueAsString(getBookDto());
 
-        Book updatingBook = Book.builder().id(1L).author("nao sei").title("menos ainda").isbn("001").build();
-        BDDMockito.given( bookService.getById( id )).willReturn( Optional.of(updatingBook) );
         Book updateBook = Book.builder().id(1L).author("Ederson").title("Lalalala").isbn("001").build();
-        BDDMockito.given( bookService.update( updatingBook )).willReturn( updateBook );
+        BDDMockito.given( bookService.update( eq(id), any() )).willReturn( Optional.of(updateBook) );
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
                 .put(BOOK_API.concat("/" + 1))
@@ -222,7 +288,7 @@ public class BookControllerTest {
     public void updateInexistentBookTest() throws Exception {
         String json = new ObjectMapper().writeValueAsString(getBookDto());
 
-        BDDMockito.given( bookService.getById( anyLong() )).willReturn( Optional.empty() );
+        BDDMockito.given( bookService.update( anyLong(), any() )).willReturn( Optional.empty() );
 
 
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -235,6 +301,94 @@ public class BookControllerTest {
                 .andExpect( status().isNotFound() );
     }
 
+    @Test
+    @DisplayName("Deve retornar os livros mais emprestados com a margem de erro")
+    public void popularBooksTest() throws Exception {
+        Book book = Book.builder().id(1L).author("Ederson").title("Lalalala").isbn("001").build();
+        BDDMockito.given( popularBooksService.minWindow() ).willReturn( Duration.ofDays(1) );
+        BDDMockito.given( popularBooksService.maxWindow() ).willReturn( Duration.ofDays(30) );
+        BDDMockito.given( popularBooksService.getMostBorrowed(Duration.ofDays(7), 10) ).willReturn(
+                new WindowedTopK.Snapshot(List.of(new WindowedTopK.Entry(1L, 12)), 400, 0.005, 0.01) );
+        BDDMockito.given( bookService.getByIds(List.of(1L)) ).willReturn( List.of(book) );
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(BOOK_API.concat("/popular?window=7d")).accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("books", hasSize(1)) )
+                .andExpect( jsonPath("books[0].book.title").value("Lalalala") )
+                .andExpect( jsonPath("books[0].estimatedLoans").value(12) )
+                .andExpect( jsonPath("maxOvercount").value(2) )
+                .andExpect( jsonPath("confidence").value(0.99) );
+    }
+
+    @Test
+    @DisplayName("Deve recusar janela maior que a retenção")
+    public void popularBooksInvalidWindowTest() throws Exception {
+        BDDMockito.given( popularBooksService.minWindow() ).willReturn( Duration.ofDays(1) );
+        BDDMockito.given( popularBooksService.maxWindow() ).willReturn( Duration.ofDays(30) );
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(BOOK_API.concat("/popular?window=90d")).accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isBadRequest() );
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(BOOK_API.concat("/popular?window=6h")).accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isBadRequest() );
+    }
+
+    @Test
+    @DisplayName("Deve adicionar cópias a um livro e informar as disponíveis")
+    public void addCopiesTest() throws Exception {
+        Book book = Book.builder().id(1L).author("Ederson").title("Lalalala").isbn("001").copies(3).availableCopies(2).build();
+        BDDMockito.given( loanService.addCopies(1L, 2) ).willReturn( Optional.of(book) );
+        String json = new ObjectMapper().writeValueAsString(BookCopiesDTO.builder().count(2).build());
+
+        mvc
+                .perform( MockMvcRequestBuilders.post(BOOK_API.concat("/1/copies"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("copies").value(3) )
+                .andExpect( jsonPath("availableCopies").value(2) );
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros pelos ids na ordem pedida e informar os ausentes")
+    public void lookupBooksByIdsTest() throws Exception {
+        Book first = Book.builder().id(1L).author("Ederson").title("Primeiro").isbn("001").build();
+        Book second = Book.builder().id(2L).author("Ederson").title("Segundo").isbn("002").build();
+        BDDMockito.given( bookService.getByIds(List.of(2L, 3L, 1L)) ).willReturn( List.of(first, second) );
+
+        mvc
+                .perform( MockMvcRequestBuilders.get(BOOK_API.concat("?ids=2,3,1")).accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("books", hasSize(2)) )
+                .andExpect( jsonPath("books[0].title").value("Segundo") )
+                .andExpect( jsonPath("books[1].title").value("Primeiro") )
+                .andExpect( jsonPath("missingIds", hasSize(1)) )
+                .andExpect( jsonPath("missingIds[0]").value(3) );
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros pelos isbns enviados no corpo")
+    public void lookupBooksByIsbnsTest() throws Exception {
+        Book book = Book.builder().id(1L).author("Ederson").title("Lalalala").isbn("001").build();
+        BDDMockito.given( bookService.getByIsbns(List.of("999", "001")) ).willReturn( List.of(book) );
+        String json = new ObjectMapper().writeValueAsString(BookLookupDTO.builder().isbns(List.of("999", "001")).build());
+
+        mvc
+                .perform( MockMvcRequestBuilders.post(BOOK_API.concat("/lookup"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(json) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("books", hasSize(1)) )
+                .andExpect( jsonPath("books[0].isbn").value("001") )
+                .andExpect( jsonPath("missingIsbns[0]").value("999") )
+                .andExpect( jsonPath("missingIds").doesNotExist() );
+    }
+
 //    @Test
 //    @DisplayName("Deve filtrar livros")
 //    public void findBooksTest() throws Exception{
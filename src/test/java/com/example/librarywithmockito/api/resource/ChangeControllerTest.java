@@ -0,0 +1,72 @@
+package com.example.librarywithmockito.api.resource;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.ChangeBatch;
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.example.librarywithmockito.model.ChangeRecord;
+import com.example.librarywithmockito.service.ChangeFeedService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@WebMvcTest(controllers = ChangeController.class)
+@Import(ChangeStream.class)
+public class ChangeControllerTest {
+
+    private static final String CHANGES_API = "/api/changes";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    ChangeFeedService changeFeed;
+
+    @Test
+    @DisplayName("Deve retornar as alterações após o token e o próximo token")
+    public void changesSinceTokenTest() throws Exception {
+        Book book = Book.builder().id(3L).isbn("123").title("Aventuras").author("Fulano").copies(1).availableCopies(0).build();
+        BDDMockito.given( changeFeed.since(5L, 1000) ).willReturn( new ChangeBatch(List.of(
+                change(6L, ChangeEntity.LOAN, 9L),
+                change(8L, ChangeEntity.BOOK, 3L)), Map.of(3L, book), Map.of(), 8L) );
+
+        MvcResult result = mvc.perform( MockMvcRequestBuilders.get(CHANGES_API + "?since=5&limit=5000").accept(MediaType.APPLICATION_JSON) )
+                .andExpect( request().asyncStarted() )
+                .andReturn();
+
+        mvc.perform( MockMvcRequestBuilders.asyncDispatch(result) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("next").value(8) )
+                .andExpect( jsonPath("changes", Matchers.hasSize(2)) )
+                .andExpect( jsonPath("changes[0].type").value("LOAN") )
+                .andExpect( jsonPath("changes[0].deleted").value(true) )
+                .andExpect( jsonPath("changes[0].loan").doesNotExist() )
+                .andExpect( jsonPath("changes[1].seq").value(8) )
+                .andExpect( jsonPath("changes[1].book.availableCopies").value(0) );
+    }
+
+    private static ChangeRecord change(Long seq, ChangeEntity entity, Long id) {
+        return ChangeRecord.builder().id(seq).entity(entity).entityId(id).recordedAt(LocalDateTime.now()).build();
+    }
+}
@@ -1,11 +1,24 @@
 package com.example.librarywithmockito.api.resource;
 
+import com.example.librarywithmockito.api.resource.dto.CheckoutDTO;
+import com.example.librarywithmockito.api.resource.dto.HoldDTO;
 import com.example.librarywithmockito.api.resource.dto.LoanDto;
+import com.example.librarywithmockito.api.resource.dto.LoanFilterDTO;
 import com.example.librarywithmockito.exception.BusinessException;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.CheckoutItem;
+import com.example.librarywithmockito.model.CheckoutStatus;
+import com.example.librarywithmockito.model.HoldStatus;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.HoldService;
+import com.example.librarywithmockito.service.IdempotencyService;
 import com.example.librarywithmockito.service.LoanService;
+import com.example.librarywithmockito.service.impl.IdempotencyServiceImpl;
+import com.example.librarywithmockito.service.impl.InMemoryIdempotencyStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -17,6 +30,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -25,6 +43,8 @@ import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilde
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -33,6 +53,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @ActiveProfiles("test")
 @AutoConfigureMockMvc
 @WebMvcTest(controllers = LoanController.class)
+@Import({IdempotencyServiceImpl.class, InMemoryIdempotencyStore.class})
 public class LoanControllerTest {
 
     private String LOAN_API = "/api/loans";
@@ -44,6 +65,8 @@ public class LoanControllerTest {
     private BookService bookService;
     @MockBean
     private LoanService loanService;
+    @MockBean
+    private HoldService holdService;
 
 
     @Test
@@ -55,7 +78,7 @@ public class LoanControllerTest {
 
         Book book = Book.builder().id(1l).isbn("123").build();
         BDDMockito.given( bookService.getBookByIsbn("123")).willReturn(Optional.of(Book.builder().id(1L).isbn("123").build()));
-        var loan = Loan.builder().id(1l).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+        var loan = Loan.builder().id(1l).customer(Customer.of("Fulano", null)).book(book).loanDate(LocalDate.now()).build();
         BDDMockito.given( loanService.save(Mockito.any(Loan.class))).willReturn(loan);
 
         var request = MockMvcRequestBuilders.post(LOAN_API)
@@ -69,6 +92,74 @@ public class LoanControllerTest {
                 .andExpect( content(). string("1"));
     }
 
+    @Test
+    @DisplayName("Deve emprestar vários livros numa única requisição")
+    public void checkoutTest() throws Exception {
+        CheckoutDTO dto = CheckoutDTO.builder().customer("fulano").email("fulano@email.com")
+                .isbns(Arrays.asList("123", "456")).build();
+        BDDMockito.given( loanService.checkout("fulano", "fulano@email.com", Arrays.asList("123", "456"), false) )
+                .willReturn(Arrays.asList(
+                        new CheckoutItem("123", CheckoutStatus.LOANED, Loan.builder().id(1L).build()),
+                        new CheckoutItem("456", CheckoutStatus.LOANED, Loan.builder().id(2L).build())));
+
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API.concat("/checkout"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("loaned").value(2))
+                .andExpect(jsonPath("complete").value(true))
+                .andExpect(jsonPath("items[1].isbn").value("456"))
+                .andExpect(jsonPath("items[1].loanId").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve retornar conflito quando nenhum livro do empréstimo atômico pôde ser emprestado")
+    public void atomicCheckoutConflictTest() throws Exception {
+        CheckoutDTO dto = CheckoutDTO.builder().customer("fulano").email("fulano@email.com")
+                .isbns(Arrays.asList("123", "456")).build();
+        BDDMockito.given( loanService.checkout("fulano", "fulano@email.com", Arrays.asList("123", "456"), false) )
+                .willReturn(Arrays.asList(
+                        new CheckoutItem("123", CheckoutStatus.NOT_PROCESSED, null),
+                        new CheckoutItem("456", CheckoutStatus.ALREADY_LOANED, null)));
+
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API.concat("/checkout"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("loaned").value(0))
+                .andExpect(jsonPath("items[0].status").value("NOT_PROCESSED"))
+                .andExpect(jsonPath("items[1].status").value("ALREADY_LOANED"));
+    }
+
+    @Test
+    @DisplayName("Deve repetir a resposta de um emprestimo já realizado com a mesma chave de idempotência")
+    public void replayedCreateLoanTest() throws Exception {
+
+        LoanDto dto = LoanDto.builder().isbn("123").email("teste@teste.com").customer("fulano").build();
+        String json = new ObjectMapper().writeValueAsString(dto);
+
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BDDMockito.given( bookService.getBookByIsbn("123")).willReturn(Optional.of(book));
+        var loan = Loan.builder().id(1l).customer(Customer.of("Fulano", null)).book(book).loanDate(LocalDate.now()).build();
+        BDDMockito.given( loanService.save(Mockito.any(Loan.class))).willReturn(loan);
+
+        for (int i = 0; i < 2; i++) {
+            var request = MockMvcRequestBuilders.post(LOAN_API)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "retry-loan-1")
+                    .content(json);
+
+            mvc
+                    .perform(request)
+                    .andExpect(status().isCreated())
+                    .andExpect( content(). string("1"));
+        }
+
+        Mockito.verify(loanService, Mockito.times(1)).save(Mockito.any(Loan.class));
+        Mockito.verify(bookService, Mockito.times(1)).getBookByIsbn("123");
+    }
+
     @Test
     @DisplayName("Deve retornar erro ao tentar fazer emprestimo de um livro inexistente.")
     public void invalidIsbnCreateLoanTest() throws  Exception{
@@ -115,4 +206,55 @@ public class LoanControllerTest {
         ;
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos sem incluir o livro por padrão")
+    public void findLoansTest() throws Exception {
+        LoanSummary loan = new SpelAwareProxyProjectionFactory().createProjection(LoanSummary.class, Map.of(
+                "id", 1l, "isbn", "321", "customer", "Fulano", "email", "fulano@email.com",
+                "bookId", 1l, "bookTitle", "Aventuras", "bookAuthor", "Fulano"));
+
+        BDDMockito.given( loanService.findSummaries(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)) )
+                .willReturn( new PageImpl<LoanSummary>( Arrays.asList(loan), PageRequest.of(0, 10), 1 ) );
+
+        mvc.perform( MockMvcRequestBuilders.get(LOAN_API + "?isbn=321&page=0&size=10").accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content", Matchers.hasSize(1)) )
+                .andExpect( jsonPath("content[0].isbn").value("321") )
+                .andExpect( jsonPath("content[0].email").value("fulano@email.com") )
+                .andExpect( jsonPath("content[0].book").doesNotExist() )
+                .andExpect( jsonPath("totalElements").value(1) )
+                .andExpect( jsonPath("size").value(10) )
+                .andExpect( jsonPath("pageable").doesNotExist() );
+
+        mvc.perform( MockMvcRequestBuilders.get(LOAN_API + "?isbn=321&expand=book").accept(MediaType.APPLICATION_JSON) )
+                .andExpect( status().isOk() )
+                .andExpect( jsonPath("content[0].book.title").value("Aventuras") );
+    }
+
+    @Test
+    @DisplayName("Deve reservar um livro emprestado e informar a posição na fila")
+    public void holdBookTest() throws Exception {
+        HoldDTO dto = HoldDTO.builder().isbn("123").customer("Fulano").email("fulano@email.com").build();
+        Book book = Book.builder().id(1l).isbn("123").build();
+        BookHold hold = BookHold.builder().id(7l).book(book).customer(Customer.of("Fulano", "fulano@email.com"))
+                .status(HoldStatus.WAITING).build();
+        BDDMockito.given( bookService.getBookByIsbn("123") ).willReturn( Optional.of(book) );
+        BDDMockito.given( loanService.hold(book, "Fulano", "fulano@email.com") ).willReturn( hold );
+        BDDMockito.given( holdService.position(hold) ).willReturn( 3l );
+
+        mvc.perform( MockMvcRequestBuilders.post(LOAN_API + "/holds")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)) )
+                .andExpect( status().isCreated() )
+                .andExpect( jsonPath("id").value(7) )
+                .andExpect( jsonPath("status").value("WAITING") )
+                .andExpect( jsonPath("position").value(3) )
+                .andExpect( jsonPath("loanId").doesNotExist() );
+
+        BDDMockito.given( holdService.cancel(8l) ).willReturn( false );
+        mvc.perform( MockMvcRequestBuilders.delete(LOAN_API + "/holds/8") )
+                .andExpect( status().isNotFound() );
+    }
+
 }
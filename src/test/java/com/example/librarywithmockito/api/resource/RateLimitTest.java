@@ -0,0 +1,93 @@
+package com.example.librarywithmockito.api.resource;
+
+import com.example.librarywithmockito.api.resource.ratelimit.ClientKeyResolver;
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.service.BookService;
+import com.example.librarywithmockito.service.LoanService;
+import com.example.librarywithmockito.service.PopularBooksService;
+import com.example.librarywithmockito.service.impl.IdempotencyServiceImpl;
+import com.example.librarywithmockito.service.impl.InMemoryIdempotencyStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(controllers = BookController.class)
+@Import({IdempotencyServiceImpl.class, InMemoryIdempotencyStore.class})
+@TestPropertySource(properties = {
+        "application.ratelimit.read.permits-per-second=1",
+        "application.ratelimit.read.burst=2",
+        "application.ratelimit.concurrency.initial-limit=0",
+        "application.clients.trusted-callers=127.0.0.1"
+})
+@AutoConfigureMockMvc
+public class RateLimitTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    PopularBooksService popularBooksService;
+
+    @Test
+    @DisplayName("Deve retornar 429 com Retry-After quando o cliente exceder o limite")
+    public void tooManyRequestsTest() throws Exception {
+        BDDMockito.given( bookService.getById(1L) ).willReturn( Optional.of(Book.builder().id(1L).build()) );
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform( get("flooding-client") ).andExpect( status().isOk() );
+        }
+
+        mvc.perform( get("flooding-client") )
+                .andExpect( status().isTooManyRequests() )
+                .andExpect( header().string(HttpHeaders.RETRY_AFTER, "1") )
+                .andExpect( jsonPath("erros[0]").value("Too many requests, retry later") );
+
+        mvc.perform( get("another-client") ).andExpect( status().isOk() );
+    }
+
+    @Test
+    @DisplayName("Deve limitar a concorrência apenas dos grupos que usam o banco")
+    public void concurrencyLimitOnlyOnDatabaseGroupsTest() throws Exception {
+        BDDMockito.given( bookService.getById(1L) ).willReturn( Optional.of(Book.builder().id(1L).build()) );
+
+        mvc.perform( MockMvcRequestBuilders.post("/api/books")
+                        .header(ClientKeyResolver.CLIENT_ID_HEADER, "writer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}") )
+                .andExpect( status().isTooManyRequests() )
+                .andExpect( header().string(HttpHeaders.RETRY_AFTER, "1") );
+
+        mvc.perform( get("reader") ).andExpect( status().isOk() );
+    }
+
+    private org.springframework.test.web.servlet.RequestBuilder get(String client) {
+        return MockMvcRequestBuilders.get("/api/books/1")
+                .header(ClientKeyResolver.CLIENT_ID_HEADER, client)
+                .accept(MediaType.APPLICATION_JSON);
+    }
+}
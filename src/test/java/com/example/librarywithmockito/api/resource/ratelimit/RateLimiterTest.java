@@ -0,0 +1,131 @@
+package com.example.librarywithmockito.api.resource.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimiterTest {
+
+    @Test
+    @DisplayName("Deve admitir a rajada configurada e depois respeitar a taxa")
+    public void tokenBucketBurstAndRefillTest(){
+        AtomicLong clock = new AtomicLong(1_000_000_000L);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, 3, clock::get);
+
+        assertThat( limiter.tryAcquire("client|loans.write") ).isZero();
+        assertThat( limiter.tryAcquire("client|loans.write") ).isZero();
+        assertThat( limiter.tryAcquire("client|loans.write") ).isZero();
+
+        long wait = limiter.tryAcquire("client|loans.write");
+        assertThat( wait ).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat( limiter.tryAcquire("other|loans.write") ).isZero();
+
+        clock.addAndGet(wait);
+        assertThat( limiter.tryAcquire("client|loans.write") ).isZero();
+        assertThat( limiter.tryAcquire("client|loans.write") ).isPositive();
+    }
+
+    @Test
+    @DisplayName("Deve descartar buckets ociosos")
+    public void evictIdleBucketsTest(){
+        AtomicLong clock = new AtomicLong(0);
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 1, clock::get);
+
+        limiter.tryAcquire("client|books.read");
+        limiter.evictIdle();
+        assertThat( limiter.size() ).isEqualTo(1);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.evictIdle();
+        assertThat( limiter.size() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite de concorrência quando a latência cresce")
+    public void adaptiveConcurrencyLimitTest(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertThat( limiter.tryAcquire() ).isTrue();
+        assertThat( limiter.tryAcquire() ).isTrue();
+        assertThat( limiter.tryAcquire() ).isFalse();
+
+        limiter.release("loan.write", TimeUnit.MILLISECONDS.toNanos(5));
+        limiter.release("loan.write", TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat( limiter.getLimit() ).isEqualTo(3);
+
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+            limiter.release("loan.write", TimeUnit.MILLISECONDS.toNanos(50));
+        }
+        assertThat( limiter.getLimit() ).isEqualTo(1);
+        assertThat( limiter.getInFlight() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve comparar a latência de cada grupo apenas com o próprio grupo")
+    public void perGroupBaselineTest(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 20);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire();
+            limiter.release("loan.read", TimeUnit.MILLISECONDS.toNanos(1));
+            limiter.tryAcquire();
+            limiter.release("loan.write", TimeUnit.MILLISECONDS.toNanos(30));
+        }
+        assertThat( limiter.getLimit() ).isEqualTo(10);
+
+        limiter.tryAcquire();
+        limiter.release("loan.write", TimeUnit.MILLISECONDS.toNanos(90));
+        assertThat( limiter.getLimit() ).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Deve acompanhar a linha de base da janela anterior sem usar uma única amostra")
+    public void windowedBaselineTest(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 20, 3);
+
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire();
+            limiter.release("book.write", TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        limiter.tryAcquire();
+        limiter.release("book.write", TimeUnit.MILLISECONDS.toNanos(25));
+        assertThat( limiter.getLimit() ).isEqualTo(9);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+            limiter.release("book.write", TimeUnit.MILLISECONDS.toNanos(15));
+        }
+        limiter.tryAcquire();
+        limiter.release("book.write", TimeUnit.MILLISECONDS.toNanos(25));
+        assertThat( limiter.getLimit() ).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar X-Client-Id apenas de chamadores confiáveis")
+    public void clientKeyTest(){
+        ClientKeyResolver resolver = new ClientKeyResolver(Set.of("10.0.0.5"));
+
+        MockHttpServletRequest trusted = new MockHttpServletRequest();
+        trusted.setRemoteAddr("10.0.0.5");
+        trusted.addHeader(ClientKeyResolver.CLIENT_ID_HEADER, "batch");
+        assertThat( resolver.resolve(trusted) ).isEqualTo("client:batch");
+
+        MockHttpServletRequest spoofed = new MockHttpServletRequest();
+        spoofed.setRemoteAddr("203.0.113.7");
+        spoofed.addHeader(ClientKeyResolver.CLIENT_ID_HEADER, "batch");
+        assertThat( resolver.resolve(spoofed) ).isEqualTo("addr:203.0.113.7");
+
+        MockHttpServletRequest authenticated = new MockHttpServletRequest();
+        authenticated.setRemoteAddr("10.0.0.5");
+        authenticated.setUserPrincipal(() -> "maria");
+        authenticated.addHeader(ClientKeyResolver.CLIENT_ID_HEADER, "batch");
+        assertThat( resolver.resolve(authenticated) ).isEqualTo("user:maria");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.librarywithmockito.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachedHealthIndicatorTest {
+
+    private static final Instant NOW = Instant.parse("2021-10-01T10:00:00Z");
+
+    @Test
+    @DisplayName("Deve servir o último resultado sem executar a verificação")
+    public void shouldServeCachedHealthTest() {
+        AtomicInteger checks = new AtomicInteger();
+        var indicator = new CachedHealthIndicator(() -> {
+            checks.incrementAndGet();
+            return Health.up().withDetail("database", "H2").build();
+        }, Duration.ofMinutes(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+
+        indicator.refresh();
+        Health health = indicator.health();
+        indicator.health();
+
+        assertThat(checks).hasValue(1);
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsEntry("database", "H2").containsEntry("stale", false);
+    }
+
+    @Test
+    @DisplayName("Deve reportar UNKNOWN quando o último resultado está velho")
+    public void shouldReportStaleHealthAsUnknownTest() {
+        var clock = new MutableClock(NOW);
+        var indicator = new CachedHealthIndicator(() -> Health.up().build(), Duration.ofMinutes(1), clock);
+        indicator.refresh();
+
+        clock.now = NOW.plus(Duration.ofMinutes(2));
+        Health health = indicator.health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UNKNOWN);
+        assertThat(health.getDetails()).containsEntry("stale", true).containsEntry("ageMillis", 120_000L);
+    }
+
+    @Test
+    @DisplayName("Deve reportar DOWN quando a verificação falha")
+    public void shouldReportFailedCheckAsDownTest() {
+        var indicator = new CachedHealthIndicator(() -> {
+            throw new IllegalStateException("smtp unreachable");
+        }, Duration.ofMinutes(1), Clock.fixed(NOW, ZoneOffset.UTC));
+
+        indicator.refresh();
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
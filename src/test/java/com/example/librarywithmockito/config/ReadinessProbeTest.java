@@ -0,0 +1,43 @@
+package com.example.librarywithmockito.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "application.health.refresh-interval=PT1H",
+        "application.health.max-staleness=PT0.001S"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class ReadinessProbeTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("Deve tirar a instância de prontidão quando a verificação do banco está velha")
+    public void staleCheckFailsReadinessTest() throws Exception {
+        Thread.sleep(10);
+
+        mvc.perform( MockMvcRequestBuilders.get("/actuator/health/readiness") )
+                .andExpect( status().isServiceUnavailable() )
+                .andExpect( jsonPath("status").value("UNKNOWN") );
+    }
+
+    @Test
+    @DisplayName("Não deve expor os detalhes da saúde para chamadores anônimos")
+    public void hidesHealthDetailsTest() throws Exception {
+        mvc.perform( MockMvcRequestBuilders.get("/actuator/health") )
+                .andExpect( jsonPath("components").doesNotExist() )
+                .andExpect( jsonPath("details").doesNotExist() );
+    }
+}
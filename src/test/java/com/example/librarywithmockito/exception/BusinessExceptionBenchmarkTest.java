@@ -0,0 +1,91 @@
+package com.example.librarywithmockito.exception;
+
+import com.example.librarywithmockito.api.resource.ApplicationControllerAdvice;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Opt-in: {@code mvn test -DexcludedGroups= -Dgroups=benchmark}
+ * <p>
+ * Each operation runs the whole error path: the exception is thrown, handled by
+ * {@link ApplicationControllerAdvice} and its body written out as the message converter would.
+ * Body sizes are summed into a sink that is checked afterwards, so the JIT cannot drop the work.
+ */
+@Slf4j
+@Tag("benchmark")
+public class BusinessExceptionBenchmarkTest {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private long sink;
+
+    @Test
+    @DisplayName("Deve responder erros pré-alocados pelo advice com menos alocação e latência que exceções com stack trace")
+    public void preallocatedExceptionIsCheaperTest() throws Exception {
+        ApplicationControllerAdvice advice = new ApplicationControllerAdvice(objectMapper);
+
+        Measure legacy = measure(advice, () -> new BusinessException("Book already loaned"));
+        Measure preallocated = measure(advice, () -> BusinessException.of(ErrorCode.BOOK_ALREADY_LOANED));
+
+        log.info("legacy: {} ns/op, {} bytes/op", legacy.nanosPerOp, legacy.bytesPerOp);
+        log.info("preallocated: {} ns/op, {} bytes/op", preallocated.nanosPerOp, preallocated.bytesPerOp);
+
+        assertThat(sink).isPositive();
+        assertThat(preallocated.bytesPerOp).isLessThan(legacy.bytesPerOp / 2);
+        assertThat(preallocated.nanosPerOp).isLessThan(legacy.nanosPerOp);
+    }
+
+    private Measure measure(ApplicationControllerAdvice advice, Supplier<BusinessException> factory) throws JsonProcessingException {
+        for (int i = 0; i < WARMUP; i++) {
+            sink += respond(advice, factory);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += respond(advice, factory);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - bytes;
+        return new Measure(elapsed / ITERATIONS, allocated / ITERATIONS);
+    }
+
+    /**
+     * @return the size of the response body, as written to the client.
+     */
+    private int respond(ApplicationControllerAdvice advice, Supplier<BusinessException> factory) throws JsonProcessingException {
+        ResponseEntity<?> response;
+        try {
+            throw factory.get();
+        } catch (BusinessException ex) {
+            response = advice.handleBusinessException(ex);
+        }
+        Object body = response.getBody();
+        byte[] written = body instanceof byte[] ? (byte[]) body : objectMapper.writeValueAsBytes(body);
+        return written.length + response.getStatusCodeValue();
+    }
+
+    private static class Measure {
+        private final long nanosPerOp;
+        private final long bytesPerOp;
+
+        private Measure(long nanosPerOp, long bytesPerOp) {
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.librarywithmockito.load;
+
+import com.example.librarywithmockito.service.IsbnFilterService;
+import com.example.librarywithmockito.service.LoanReportService;
+import com.example.librarywithmockito.service.PopularBooksService;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Seeds H2 with a skewed catalogue and loan history and drives mixed scenarios through the real
+ * controllers, logging throughput, latency percentiles and allocation rate per scenario.
+ * <p>
+ * Checkouts only pick books with a free copy and returns only the loans this run opened, so
+ * circulation latencies measure successful writes rather than "already loaned" rejections.
+ * <p>
+ * Opt-in: {@code mvn test -DexcludedGroups= -Dgroups=load}, volumes through {@link LoadProfile}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(properties = {
+        "application.ratelimit.enabled=false",
+        "logging.level.org.hibernate.SQL=off"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class LibraryLoadTest {
+
+    private static final int PROJECTION_BATCH = 5_000;
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    IsbnFilterService isbnFilterService;
+
+    @Autowired
+    PopularBooksService popularBooksService;
+
+    @Autowired
+    LoanReportService loanReportService;
+
+    LoadProfile profile;
+    LoadDataSet data;
+    LoadRunner runner;
+    final Queue<OpenLoan> openLoans = new ConcurrentLinkedQueue<>();
+    final Set<Integer> loanedBooks = ConcurrentHashMap.newKeySet();
+
+    @BeforeAll
+    public void seed() {
+        profile = LoadProfile.fromSystemProperties();
+        data = new LoadDataGenerator(jdbcTemplate, profile).generate();
+        for (int rank = 0; rank < data.size(); rank++) {
+            if( data.loanedAtSeed(rank) ){
+                loanedBooks.add(rank);
+            }
+        }
+        isbnFilterService.rebuild();
+        popularBooksService.rebuild();
+        while( loanReportService.projectEvents(PROJECTION_BATCH) > 0 ){
+            // drain the backfilled event log so report reads hit populated projections
+        }
+        runner = new LoadRunner(mvc, profile);
+    }
+
+    @Test
+    @DisplayName("Carga de consulta ao acervo")
+    public void catalogueBrowseTest() throws Exception {
+        assertHealthy(runner.run(LoadScenario.named("catalogue-browse")
+                .with("get-book", 60, this::getBook)
+                .with("book-loans", 20, this::bookLoans)
+                .with("popular-books", 10, this::popularBooks)
+                .with("find-loans", 10, this::findLoans)));
+    }
+
+    @Test
+    @DisplayName("Carga de empréstimos e devoluções")
+    public void circulationTest() throws Exception {
+        assertHealthy(runner.run(LoadScenario.named("circulation")
+                .with("checkout", 45, this::checkout)
+                .with("return", 45, this::returnLoan)
+                .with("customer-history", 10, this::customerHistory)));
+    }
+
+    @Test
+    @DisplayName("Carga mista de leitura e escrita")
+    public void mixedTest() throws Exception {
+        assertHealthy(runner.run(LoadScenario.named("mixed")
+                .with("get-book", 40, this::getBook)
+                .with("book-loans", 10, this::bookLoans)
+                .with("popular-books", 5, this::popularBooks)
+                .with("find-loans", 10, this::findLoans)
+                .with("checkout", 12, this::checkout)
+                .with("return", 12, this::returnLoan)
+                .with("customer-history", 6, this::customerHistory)
+                .with("late-loans", 5, this::lateLoans)));
+    }
+
+    private void assertHealthy(LoadReport report) {
+        log.info("{}", report.format());
+        assertThat(report.getCount()).isPositive();
+        assertThat(report.getServerErrors()).isZero();
+    }
+
+    private int getBook(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/books/{id}", data.bookId(data.sampleBook(random)))).andReturn());
+    }
+
+    private int bookLoans(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/books/{id}/loans", data.bookId(data.sampleBook(random)))
+                .param("history", String.valueOf(random.nextInt(4) == 0))
+                .param("size", "10")).andReturn());
+    }
+
+    private int popularBooks(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/books/popular")
+                .param("window", random.nextBoolean() ? "1d" : "7d")).andReturn());
+    }
+
+    private int findLoans(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/loans")
+                .param("customer", data.sampleCustomer(random))
+                .param("size", "10")).andReturn());
+    }
+
+    private int checkout(MockMvc mvc, Random random) throws Exception {
+        int rank = claimFreeBook(random);
+        String body = String.format("{\"isbn\":\"%s\",\"customer\":\"%s\"}",
+                data.isbn(rank), data.sampleCustomer(random));
+        MvcResult result = mvc.perform(post("/api/loans")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body)).andReturn();
+        if( result.getResponse().getStatus() == 201 ){
+            openLoans.add(new OpenLoan(Long.valueOf(result.getResponse().getContentAsString()), rank));
+        } else {
+            loanedBooks.remove(rank);
+        }
+        return status(result);
+    }
+
+    /**
+     * Keeps the popularity skew: a sampled book that is out on loan hands over to the next free
+     * rank, as the generator does when seeding open loans.
+     */
+    private int claimFreeBook(Random random) {
+        int rank = data.sampleBook(random);
+        for (int i = 0; i < data.size() && !loanedBooks.add(rank); i++) {
+            rank = (rank + 1) % data.size();
+        }
+        return rank;
+    }
+
+    private int returnLoan(MockMvc mvc, Random random) throws Exception {
+        OpenLoan loan = openLoans.poll();
+        if( loan == null ){
+            return checkout(mvc, random);
+        }
+        int status = status(mvc.perform(patch("/api/loans/{id}", loan.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"returned\":true}")).andReturn());
+        if( status < 300 ){
+            loanedBooks.remove(loan.getRank());
+        }
+        return status;
+    }
+
+    private int customerHistory(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/reports/customers/{customer}/loans", data.sampleCustomer(random))
+                .param("size", "10")).andReturn());
+    }
+
+    private int lateLoans(MockMvc mvc, Random random) throws Exception {
+        return status(mvc.perform(get("/api/reports/loans/late")
+                .param("page", String.valueOf(random.nextInt(10)))
+                .param("size", "20")).andReturn());
+    }
+
+    private static int status(MvcResult result) {
+        return result.getResponse().getStatus();
+    }
+
+    @Value
+    private static class OpenLoan {
+        long id;
+        int rank;
+    }
+}
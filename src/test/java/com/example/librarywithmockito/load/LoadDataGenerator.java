@@ -0,0 +1,160 @@
+package com.example.librarywithmockito.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Seeds the database straight through JDBC batches; going through the services would make
+ * seeding millions of rows take longer than the load test itself.
+ */
+@Slf4j
+public class LoadDataGenerator {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadProfile profile;
+
+    public LoadDataGenerator(JdbcTemplate jdbcTemplate, LoadProfile profile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.profile = profile;
+    }
+
+    public LoadDataSet generate() {
+        Random random = new Random(profile.getSeed());
+        long start = System.nanoTime();
+
+        String[] isbns = insertBooks(random);
+        long[] bookIds = loadBookIds(isbns);
+        long[] customerIds = insertCustomers();
+        ZipfSampler bookSampler = new ZipfSampler(profile.getBooks(), profile.getBookSkew());
+        ZipfSampler customerSampler = new ZipfSampler(profile.getCustomers(), profile.getCustomerSkew());
+        BitSet loaned = new BitSet(bookIds.length);
+        int loans = insertLoans(random, bookIds, customerIds, bookSampler, customerSampler, loaned);
+        jdbcTemplate.update(" update book set available_copies = 0 where isbn like 'LT%' and exists " +
+                " ( select 1 from loan l where l.id_book = book.id and l.returned = false ) ");
+
+        log.info("Seeded {} books and {} loans in {} ms", profile.getBooks(), loans,
+                (System.nanoTime() - start) / 1_000_000);
+        return new LoadDataSet(bookIds, isbns, bookSampler, customerSampler, loaned);
+    }
+
+    /**
+     * Inserts the catalogue in a seeded shuffled order, so popularity rank and primary key are
+     * not correlated and hot books do not all share the same index pages.
+     */
+    private String[] insertBooks(Random random) {
+        int books = profile.getBooks();
+        int[] order = new int[books];
+        for (int i = 0; i < books; i++) {
+            order[i] = i;
+        }
+        for (int i = books - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        String[] isbns = new String[books];
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < books; i++) {
+            int rank = order[i];
+            isbns[rank] = String.format("LT%010d", rank);
+            batch.add(new Object[]{ "Book " + rank, "Author " + random.nextInt(Math.max(1, books / 10)), isbns[rank] });
+            if( batch.size() == BATCH_SIZE ){
+                flush(" insert into book (title, author, isbn, copies, available_copies, version) values (?, ?, ?, 1, 1, 0) ", batch);
+            }
+        }
+        flush(" insert into book (title, author, isbn, copies, available_copies, version) values (?, ?, ?, 1, 1, 0) ", batch);
+        return isbns;
+    }
+
+    private long[] loadBookIds(String[] isbns) {
+        Map<String, Long> ids = new HashMap<>(isbns.length * 2);
+        jdbcTemplate.query(" select id, isbn from book where isbn like 'LT%' ",
+                rs -> { ids.put(rs.getString(2), rs.getLong(1)); });
+        long[] bookIds = new long[isbns.length];
+        for (int rank = 0; rank < isbns.length; rank++) {
+            bookIds[rank] = ids.get(isbns[rank]);
+        }
+        return bookIds;
+    }
+
+    private long[] insertCustomers() {
+        int customers = profile.getCustomers();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int rank = 0; rank < customers; rank++) {
+            batch.add(new Object[]{ LoadDataSet.customer(rank), LoadDataSet.email(rank) });
+            if( batch.size() == BATCH_SIZE ){
+                flush(" insert into customer (name, email) values (?, ?) ", batch);
+            }
+        }
+        flush(" insert into customer (name, email) values (?, ?) ", batch);
+
+        long[] customerIds = new long[customers];
+        jdbcTemplate.query(" select id, name from customer where name like 'customer-%' ",
+                rs -> { customerIds[Integer.parseInt(rs.getString(2).substring("customer-".length()))] = rs.getLong(1); });
+        return customerIds;
+    }
+
+    /**
+     * Returned loans spread over the configured history, then at most one open loan per book,
+     * which keeps the data consistent with the "book already loaned" rule. Books given an open
+     * loan are marked in {@code loaned}.
+     */
+    private int insertLoans(Random random, long[] bookIds, long[] customerIds, ZipfSampler books, ZipfSampler customers,
+                            BitSet loaned) {
+        String sql = " insert into loan (id, customer_id, id_book, loan_date, returned, return_date, version) " +
+                " values (next value for loan_seq, ?, ?, ?, ?, ?, 0) ";
+        LocalDate today = LocalDate.now();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        int inserted = 0;
+
+        int openLoans = (int) Math.min(profile.getLoans(), Math.round(bookIds.length * profile.getActiveLoanRatio()));
+        for (int i = 0; i < profile.getLoans() - openLoans; i++) {
+            int customer = customers.sample(random);
+            LocalDate loanDate = today.minusDays(1 + random.nextInt(profile.getHistoryDays()));
+            LocalDate returnDate = loanDate.plusDays(1 + random.nextInt(21));
+            batch.add(new Object[]{ customerIds[customer],
+                    bookIds[books.sample(random)], Date.valueOf(loanDate), true,
+                    Date.valueOf(returnDate.isAfter(today) ? today : returnDate) });
+            if( batch.size() == BATCH_SIZE ){
+                inserted += flush(sql, batch);
+            }
+        }
+
+        for (int i = 0; i < openLoans; i++) {
+            int rank = books.sample(random);
+            while( loaned.get(rank) ){
+                rank = (rank + 1) % bookIds.length;
+            }
+            loaned.set(rank);
+            int customer = customers.sample(random);
+            batch.add(new Object[]{ customerIds[customer],
+                    bookIds[rank], Date.valueOf(today.minusDays(random.nextInt(30))), false, null });
+            if( batch.size() == BATCH_SIZE ){
+                inserted += flush(sql, batch);
+            }
+        }
+        return inserted + flush(sql, batch);
+    }
+
+    private int flush(String sql, List<Object[]> batch) {
+        int size = batch.size();
+        if( size > 0 ){
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.librarywithmockito.load;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * The seeded catalogue, indexed by popularity rank, plus the samplers scenarios use to pick
+ * books and customers with the same skew the data was generated with.
+ */
+@RequiredArgsConstructor
+public class LoadDataSet {
+
+    private final long[] bookIds;
+    private final String[] isbns;
+    private final ZipfSampler bookSampler;
+    private final ZipfSampler customerSampler;
+    private final BitSet loanedAtSeed;
+
+    public int size() {
+        return bookIds.length;
+    }
+
+    public int sampleBook(Random random) {
+        return bookSampler.sample(random);
+    }
+
+    public long bookId(int rank) {
+        return bookIds[rank];
+    }
+
+    public String isbn(int rank) {
+        return isbns[rank];
+    }
+
+    /**
+     * Whether the book was seeded with an open loan, i.e. has no copy left to lend.
+     */
+    public boolean loanedAtSeed(int rank) {
+        return loanedAtSeed.get(rank);
+    }
+
+    public String sampleCustomer(Random random) {
+        return customer(customerSampler.sample(random));
+    }
+
+    static String customer(int rank) {
+        return "customer-" + rank;
+    }
+
+    static String email(int rank) {
+        return "customer-" + rank + "@library.test";
+    }
+}
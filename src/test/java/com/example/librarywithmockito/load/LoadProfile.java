@@ -0,0 +1,44 @@
+package com.example.librarywithmockito.load;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Data volumes and run parameters of a load test. Every value can be overridden with a
+ * {@code -Dload.*} system property, e.g. {@code -Dload.books=1000000 -Dload.loans=10000000}.
+ */
+@Value
+@Builder
+public class LoadProfile {
+
+    long seed;
+    int books;
+    int customers;
+    int loans;
+    /** Share of the catalogue currently out on loan. */
+    double activeLoanRatio;
+    int historyDays;
+    double bookSkew;
+    double customerSkew;
+    int threads;
+    Duration warmup;
+    Duration duration;
+
+    public static LoadProfile fromSystemProperties() {
+        return LoadProfile.builder()
+                .seed(Long.getLong("load.seed", 42L))
+                .books(Integer.getInteger("load.books", 10_000))
+                .customers(Integer.getInteger("load.customers", 5_000))
+                .loans(Integer.getInteger("load.loans", 100_000))
+                .activeLoanRatio(Double.parseDouble(System.getProperty("load.active-loan-ratio", "0.1")))
+                .historyDays(Integer.getInteger("load.history-days", 365))
+                .bookSkew(Double.parseDouble(System.getProperty("load.book-skew", "1.1")))
+                .customerSkew(Double.parseDouble(System.getProperty("load.customer-skew", "0.8")))
+                .threads(Integer.getInteger("load.threads", Runtime.getRuntime().availableProcessors() * 2))
+                .warmup(Duration.parse(System.getProperty("load.warmup", "PT5S")))
+                .duration(Duration.parse(System.getProperty("load.duration", "PT20S")))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.librarywithmockito.load;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class LoadReport {
+
+    String scenario;
+    int threads;
+    double seconds;
+    long allocatedBytes;
+    List<OperationStats> operations;
+
+    public long getCount() {
+        return operations.stream().mapToLong(OperationStats::getCount).sum();
+    }
+
+    public long getServerErrors() {
+        return operations.stream().mapToLong(OperationStats::getServerErrors).sum();
+    }
+
+    public double getThroughput() {
+        return getCount() / seconds;
+    }
+
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%n== %s: %d threads, %.1f s, %.0f ops/s, %d bytes/op, %.1f MB/s allocated%n",
+                scenario, threads, seconds, getThroughput(),
+                getCount() == 0 ? 0 : allocatedBytes / getCount(), allocatedBytes / seconds / (1024 * 1024)));
+        out.append(String.format("%-24s %9s %9s %9s %9s %9s %9s %6s %6s%n",
+                "operation", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "4xx", "5xx"));
+        for (OperationStats stats : operations) {
+            out.append(String.format("%-24s %9d %9.0f %9.2f %9.2f %9.2f %9.2f %6d %6d%n",
+                    stats.getName(), stats.getCount(), stats.getCount() / seconds,
+                    stats.getP50Millis(), stats.getP95Millis(), stats.getP99Millis(), stats.getMaxMillis(),
+                    stats.getClientErrors(), stats.getServerErrors()));
+        }
+        return out.toString();
+    }
+
+    @Value
+    public static class OperationStats {
+        String name;
+        long count;
+        double p50Millis;
+        double p95Millis;
+        double p99Millis;
+        double maxMillis;
+        long clientErrors;
+        long serverErrors;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.librarywithmockito.load;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a {@link LoadScenario} against the in-process MVC stack with a fixed number of closed-loop
+ * workers: a warmup phase that is discarded, then a measured phase that records every latency.
+ */
+public class LoadRunner {
+
+    private final MockMvc mvc;
+    private final LoadProfile profile;
+
+    public LoadRunner(MockMvc mvc, LoadProfile profile) {
+        this.mvc = mvc;
+        this.profile = profile;
+    }
+
+    public LoadReport run(LoadScenario scenario) throws Exception {
+        int threads = profile.getThreads();
+        int operations = scenario.getOperations().size();
+        long warmupEnd = System.nanoTime() + profile.getWarmup().toNanos();
+        long measureEnd = warmupEnd + profile.getDuration().toNanos();
+        AtomicLong allocated = new AtomicLong();
+        CountDownLatch ready = new CountDownLatch(threads);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Recorder[]>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(profile.getSeed() * 31 + t);
+                futures.add(executor.submit(() -> {
+                    Recorder[] recorders = new Recorder[operations];
+                    for (int i = 0; i < operations; i++) {
+                        recorders[i] = new Recorder();
+                    }
+                    ready.countDown();
+                    ready.await();
+                    while( System.nanoTime() < warmupEnd ){
+                        execute(scenario, random, null);
+                    }
+                    long bytes = allocatedBytes();
+                    while( System.nanoTime() < measureEnd ){
+                        execute(scenario, random, recorders);
+                    }
+                    allocated.addAndGet(allocatedBytes() - bytes);
+                    return recorders;
+                }));
+            }
+            Recorder[] merged = new Recorder[operations];
+            for (int i = 0; i < operations; i++) {
+                merged[i] = new Recorder();
+            }
+            for (Future<Recorder[]> future : futures) {
+                Recorder[] recorders = future.get();
+                for (int i = 0; i < operations; i++) {
+                    merged[i].merge(recorders[i]);
+                }
+            }
+
+            List<LoadReport.OperationStats> stats = new ArrayList<>();
+            for (int i = 0; i < operations; i++) {
+                stats.add(merged[i].stats(scenario.getOperationNames().get(i)));
+            }
+            return new LoadReport(scenario.getName(), threads, profile.getDuration().toMillis() / 1000d,
+                    allocated.get(), stats);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void execute(LoadScenario scenario, Random random, Recorder[] recorders) throws Exception {
+        int operation = scenario.pick(random);
+        long start = System.nanoTime();
+        int status = scenario.getOperations().get(operation).execute(mvc, random);
+        if( recorders != null ){
+            recorders[operation].record(System.nanoTime() - start, status);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long clientErrors;
+        private long serverErrors;
+
+        void record(long nanos, int status) {
+            if( count == latencies.length ){
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if( status >= 500 ){
+                serverErrors++;
+            } else if( status >= 400 ){
+                clientErrors++;
+            }
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i], 200);
+            }
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+        }
+
+        LoadReport.OperationStats stats(String name) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new LoadReport.OperationStats(name, count,
+                    percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                    percentile(sorted, 1.0), clientErrors, serverErrors);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if( sorted.length == 0 ){
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.librarywithmockito.load;
+
+import lombok.Getter;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A named mix of weighted operations. Each worker thread picks the next operation at random
+ * according to the weights, using its own seeded {@link Random}, so runs are reproducible.
+ */
+@Getter
+public class LoadScenario {
+
+    private final String name;
+    private final List<String> operationNames = new ArrayList<>();
+    private final List<Operation> operations = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private int totalWeight;
+
+    private LoadScenario(String name) {
+        this.name = name;
+    }
+
+    public static LoadScenario named(String name) {
+        return new LoadScenario(name);
+    }
+
+    public LoadScenario with(String operation, int weight, Operation action) {
+        if( weight <= 0 ){
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        totalWeight += weight;
+        operationNames.add(operation);
+        operations.add(action);
+        cumulativeWeights.add(totalWeight);
+        return this;
+    }
+
+    int pick(Random random) {
+        int index = Collections.binarySearch(cumulativeWeights, random.nextInt(totalWeight) + 1);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * @return the HTTP status of the response
+         */
+        int execute(MockMvc mvc, Random random) throws Exception;
+    }
+}
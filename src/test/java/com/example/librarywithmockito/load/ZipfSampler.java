@@ -0,0 +1,34 @@
+package com.example.librarywithmockito.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples ranks in {@code [0, size)} with probability proportional to {@code 1 / (rank + 1)^exponent},
+ * so a handful of books and customers account for most of the traffic, as in a real library.
+ */
+class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double exponent) {
+        if( size <= 0 ){
+            throw new IllegalArgumentException("size must be positive");
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+}
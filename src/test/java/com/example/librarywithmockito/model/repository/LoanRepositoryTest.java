@@ -2,8 +2,13 @@ package com.example.librarywithmockito.model.repository;
 
 
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.Customer;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.LoanArchive;
+import com.example.librarywithmockito.repository.CustomerRepository;
+import com.example.librarywithmockito.repository.LoanArchiveRepository;
 import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.projection.LoanSummary;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -29,20 +34,13 @@ public class LoanRepositoryTest {
     private LoanRepository repository;
 
     @Autowired
-    private TestEntityManager entityManager;
-
-    @Test
-    @DisplayName("deve verificar se existe empréstimo não devolvido para o livro.")
-    public void existsByBookAndNotReturnedTest(){
-        //cenário
-        Loan loan = createAndPersistLoan(LocalDate.now());
-        Book book = loan.getBook();
+    private LoanArchiveRepository archiveRepository;
 
-        //execucao
-        boolean exists = repository.existsByBookAndNotReturned(book);
+    @Autowired
+    private CustomerRepository customerRepository;
 
-        assertThat(exists).isTrue();
-    }
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     @DisplayName("Deve buscar empréstimo pelo isbn do livro ou customer")
@@ -59,6 +57,23 @@ public class LoanRepositoryTest {
         assertThat(result.getTotalElements()).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("Deve buscar o resumo dos empréstimos pelo isbn do livro ou customer")
+    public void findSummaryByBookIsbnOrCustomerTest(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+
+        Page<LoanSummary> result = repository.findSummaryByBookIsbnOrCustomer(
+                "123", "Fulano", PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        LoanSummary summary = result.getContent().get(0);
+        assertThat(summary.getId()).isEqualTo(loan.getId());
+        assertThat(summary.getIsbn()).isEqualTo("123");
+        assertThat(summary.getCustomer()).isEqualTo("Fulano");
+        assertThat(summary.getBookId()).isEqualTo(loan.getBook().getId());
+        assertThat(summary.getBookTitle()).isEqualTo("Aventuras");
+    }
+
     @Test
     @DisplayName("Deve obter empréstimos cuja data emprestimo for menor ou igual a tres dias atras e nao retornados")
     public void findByLoanDateLessThanAndNotReturnedTest(){
@@ -79,11 +94,46 @@ public class LoanRepositoryTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("Deve obter empréstimos devolvidos antes da data informada.")
+    public void findReturnedBeforeTest(){
+        Loan returned = createAndPersistLoan( LocalDate.now().minusDays(40) );
+        returned.setReturned(true);
+        returned.setReturnDate(LocalDate.now().minusDays(35));
+        entityManager.persist(returned);
+        createAndPersistLoan( LocalDate.now().minusDays(40), "456" );
+
+        List<Loan> result = repository.findReturnedBefore(LocalDate.now().minusDays(30), PageRequest.of(0, 10));
+
+        assertThat(result).hasSize(1).contains(returned);
+    }
+
+    @Test
+    @DisplayName("Deve paginar o histórico arquivado do livro a partir de um deslocamento.")
+    public void findArchivedSliceByBookTest(){
+        Loan loan = createAndPersistLoan( LocalDate.now().minusDays(60) );
+        Book book = loan.getBook();
+        for (long id = 1; id <= 3; id++) {
+            entityManager.persist( LoanArchive.builder().id(100 + id).book(book).customer("Fulano").build() );
+        }
+
+        List<LoanArchive> result = archiveRepository.findSliceByBook(book.getId(), 1, 5);
+
+        assertThat(result).extracting(LoanArchive::getId).containsExactly(102l, 103l);
+        assertThat(archiveRepository.countByBook(book)).isEqualTo(3);
+    }
+
     public Loan createAndPersistLoan(LocalDate loanDate){
-        Book book = Book.builder().title("Aventuras").author("Fulano").isbn("123").build();
+        return createAndPersistLoan(loanDate, "123");
+    }
+
+    public Loan createAndPersistLoan(LocalDate loanDate, String isbn){
+        Book book = Book.builder().title("Aventuras").author("Fulano").isbn(isbn).build();
         entityManager.persist(book);
 
-        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(loanDate).build();
+        Customer customer = customerRepository.findByNameAndEmail("Fulano", null).stream().findFirst()
+                .orElseGet(() -> entityManager.persist(Customer.of("Fulano", null)));
+        Loan loan = Loan.builder().book(book).customer(customer).loanDate(loanDate).build();
         entityManager.persist(loan);
 
         return loan;
@@ -0,0 +1,110 @@
+package com.example.librarywithmockito.repository.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicationRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReadYourWritesTracker tracker;
+
+    @BeforeEach
+    public void setUp(){
+        primary = node("primary");
+        replica = node("replica");
+        new JdbcTemplate(replica).execute("create table replication_status (lag_seconds int)");
+        new JdbcTemplate(replica).execute("insert into replication_status values (0)");
+        tracker = new ReadYourWritesTracker(Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    public void tearDown(){
+        tracker.clear();
+        new JdbcTemplate(primary).execute("shutdown");
+        new JdbcTemplate(replica).execute("shutdown");
+    }
+
+    @Test
+    @DisplayName("Deve ler da réplica em transações somente leitura e escrever no primário")
+    public void routeByTransactionTypeTest(){
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5), null);
+        DataSource routing = routing(replica, monitor);
+
+        tracker.bind("client-a");
+        assertThat( nodeOf(routing, true) ).isEqualTo("replica");
+        assertThat( nodeOf(routing, false) ).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário logo após uma escrita do mesmo cliente")
+    public void readYourWritesTest(){
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5), null);
+        DataSource routing = routing(replica, monitor);
+
+        tracker.bind("client-a");
+        nodeOf(routing, false);
+        assertThat( nodeOf(routing, true) ).isEqualTo("primary");
+
+        tracker.bind("client-b");
+        assertThat( nodeOf(routing, true) ).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário enquanto a réplica estiver atrasada")
+    public void replicaLagFallbackTest(){
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, Duration.ofSeconds(5),
+                "select lag_seconds from replication_status");
+        DataSource routing = routing(replica, monitor);
+
+        new JdbcTemplate(replica).update("update replication_status set lag_seconds = 60");
+        monitor.check();
+        assertThat( nodeOf(routing, true) ).isEqualTo("primary");
+
+        new JdbcTemplate(replica).update("update replication_status set lag_seconds = 1");
+        monitor.check();
+        assertThat( nodeOf(routing, true) ).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário quando a réplica estiver fora do ar")
+    public void replicaUnavailableFallbackTest(){
+        DataSource unavailable = new DriverManagerDataSource("jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(unavailable, Duration.ofSeconds(5), null);
+        DataSource routing = routing(unavailable, monitor);
+
+        assertThat( nodeOf(routing, true) ).isEqualTo("primary");
+        assertThat( monitor.isReplicaUsable() ).isFalse();
+    }
+
+    private DataSource routing(DataSource replica, ReplicaLagMonitor monitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicationRoutingDataSource(primary, replica, monitor, tracker));
+    }
+
+    private static String nodeOf(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+    }
+
+    private static DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table node (name varchar(20))");
+        jdbc.update("insert into node values (?)", name);
+        return dataSource;
+    }
+}
@@ -3,11 +3,15 @@ package com.example.librarywithmockito.service;
 import com.example.librarywithmockito.exception.BusinessException;
 import com.example.librarywithmockito.model.Book;
 import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.service.impl.BookReadCacheImpl;
 import com.example.librarywithmockito.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Example;
@@ -17,9 +21,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -32,10 +41,18 @@ public class BookServiceTest {
     BookService service;
     @MockBean
     BookRepository repository;
+    @MockBean
+    IsbnFilterService isbnFilter;
+    @MockBean
+    ChangeFeedService changeFeed;
+    @Captor
+    ArgumentCaptor<Collection<String>> chunks;
 
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.service = new BookServiceImpl(repository, isbnFilter,
+                new BookReadCacheImpl(Duration.ZERO, 0, new SimpleMeterRegistry(), Clock.systemUTC()), changeFeed);
+        when(isbnFilter.mightExist(anyString())).thenReturn(true);
     }
 
     @Test
@@ -58,6 +75,33 @@ public class BookServiceTest {
         assertThat(savedBook.getAuthor()).isEqualTo("fulano");
     }
 
+    @Test
+    @DisplayName("Não deve consultar o banco quando o filtro garante que o isbn é novo")
+    public void shouldSkipExistsQueryWhenIsbnIsDefinitelyNew(){
+        var book = createValidBook();
+        var bookSaved = Book.builder().id(11L).author("fulano").title("teste").isbn("123").build();
+        when(isbnFilter.mightExist("123")).thenReturn(false);
+        when( repository.save(book) ).thenReturn(bookSaved);
+
+        var savedBook = service.save(book);
+
+        assertThat(savedBook.getId()).isEqualTo(11L);
+        verify(repository, never()).existsByIsbn(anyString());
+        verify(isbnFilter).add("123");
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco mesmo quando o filtro desta instância não conhece o isbn")
+    public void shouldQueryIsbnWhenFilterRejects(){
+        when(isbnFilter.mightExist("999")).thenReturn(false);
+        when(repository.findByIsbn("999")).thenReturn(Optional.of(Book.builder().id(9L).isbn("999").build()));
+
+        var book = service.getBookByIsbn("999");
+
+        assertThat(book).isPresent();
+        verify(repository).findByIsbn("999");
+    }
+
     private Book createValidBook() {
         return Book.builder().isbn("123").author("fulano").title("teste").build();
     }
@@ -119,11 +163,14 @@ public class BookServiceTest {
     @DisplayName("Deve deletar um livro")
     public void deleteBookTest() throws IllegalAccessException {
 
-        Book book = Book.builder().id(1L).build();
+        Book book = Book.builder().id(1L).version(0L).build();
+        Book managed = Book.builder().id(1L).isbn("123").version(3L).build();
+        when( repository.findById(1L) ).thenReturn( Optional.of(managed) );
 
         service.delete(book);
 
-        Mockito.verify( repository, Mockito.times(1)).delete(book);
+        Mockito.verify( repository, Mockito.times(1)).delete(managed);
+        Mockito.verify( isbnFilter ).recordDelete("123");
 
     }
 
@@ -154,22 +201,26 @@ public class BookServiceTest {
         //cenário
         long id = 1l;
 
-        //livro a atualizar
-        Book updatingBook = Book.builder().id(id).build();
+        //livro a atualizar, cópia desanexada com versão antiga
+        Book updatingBook = Book.builder().id(id).title("Novo título").author("Novo autor").version(0L).build();
 
         //simulacao
-        Book updatedBook = createValidBook();
-        updatedBook.setId(id);
-        when(repository.save(updatingBook)).thenReturn(updatedBook);
+        Book managed = createValidBook();
+        managed.setId(id);
+        managed.setVersion(3L);
+        when(repository.findById(id)).thenReturn(Optional.of(managed));
+        when(repository.save(managed)).thenReturn(managed);
 
         //exeucao
         Book book = service.update(updatingBook);
 
         //verificacoes
-        assertThat(book.getId()).isEqualTo(updatedBook.getId());
-        assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
-        assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());
-        assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
+        assertThat(book).isSameAs(managed);
+        assertThat(book.getTitle()).isEqualTo("Novo título");
+        assertThat(book.getAuthor()).isEqualTo("Novo autor");
+        assertThat(book.getIsbn()).isEqualTo("123");
+        assertThat(book.getVersion()).isEqualTo(3L);
+        Mockito.verify( repository, Mockito.never() ).save(updatingBook);
 
     }
 
@@ -213,4 +264,75 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Deve buscar os livros por isbn em lotes, inclusive os que o filtro desconhece")
+    public void getBooksByIsbnsInChunksTest(){
+        List<String> isbns = IntStream.range(0, 1200).mapToObj(String::valueOf).collect(Collectors.toList());
+        when( isbnFilter.mightExist("7") ).thenReturn(false);
+        when( repository.findByIsbnIn(anyCollection()) ).thenReturn( List.of(Book.builder().id(1L).isbn("1").build()) );
+
+        var books = service.getByIsbns(isbns);
+
+        assertThat(books).hasSize(3);
+        verify(repository, times(3)).findByIsbnIn(chunks.capture());
+        assertThat(chunks.getAllValues()).extracting(Collection::size).containsExactly(500, 500, 200);
+        assertThat(chunks.getAllValues().get(0)).contains("7");
+    }
+
+    @Test
+    @DisplayName("Deve servir leituras repetidas do cache até o livro ser alterado")
+    public void cachedReadsUntilUpdateTest(){
+        service = new BookServiceImpl(repository, isbnFilter,
+                new BookReadCacheImpl(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(), Clock.systemUTC()), changeFeed);
+        Book book = Book.builder().id(1L).title("Antigo").isbn("123").build();
+        when( repository.findById(1L) ).thenReturn( Optional.of(book) );
+
+        var first = service.getById(1L).get();
+        first.setTitle("Alterado sem salvar");
+        var second = service.getById(1L).get();
+
+        assertThat(second.getTitle()).isEqualTo("Antigo");
+        verify(repository, times(1)).findById(1L);
+
+        service.update(Book.builder().id(1L).title("Novo").isbn("123").build());
+        service.getById(1L);
+
+        verify(repository, times(3)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve descartar as chaves por id e isbn do livro alterado sem afetar os demais")
+    public void evictByIdAndIsbnTest(){
+        var cache = new BookReadCacheImpl(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(), Clock.systemUTC());
+        Book book = Book.builder().id(1L).title("Antigo").isbn("123").build();
+        Book other = Book.builder().id(2L).title("Outro").isbn("456").build();
+        cache.getById(1L, () -> Optional.of(book));
+        cache.getByIsbn("123", () -> Optional.of(book));
+        cache.getById(2L, () -> Optional.of(other));
+
+        cache.evict(book);
+
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+        assertThat(cache.getIfPresent(2L)).isPresent();
+        var reloaded = cache.getByIsbn("123", () -> Optional.of(Book.builder().id(1L).title("Novo").isbn("123").build()));
+        assertThat(reloaded.get().getTitle()).isEqualTo("Novo");
+    }
+
+    @Test
+    @DisplayName("Não deve guardar no cache uma leitura iniciada antes da alteração do livro")
+    public void loadRacingWithEvictionTest(){
+        var cache = new BookReadCacheImpl(Duration.ofMinutes(1), 100, new SimpleMeterRegistry(), Clock.systemUTC());
+        Book book = Book.builder().id(1L).title("Antigo").isbn("123").build();
+
+        var loaded = cache.getByIsbn("123", () -> {
+            cache.evict(book);
+            return Optional.of(book);
+        });
+
+        assertThat(loaded).isPresent();
+        assertThat(cache.getIfPresent(1L)).isEmpty();
+        var reloaded = cache.getByIsbn("123", () -> Optional.of(Book.builder().id(1L).title("Novo").isbn("123").build()));
+        assertThat(reloaded.get().getTitle()).isEqualTo("Novo");
+    }
+
 }
@@ -0,0 +1,151 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.ChangeBatch;
+import com.example.librarywithmockito.model.ChangeEntity;
+import com.example.librarywithmockito.model.ChangeRecord;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.ChangeRecordRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.service.impl.ChangeFeedServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ChangeFeedServiceTest {
+
+    @Autowired
+    ChangeFeedService changeFeed;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    ChangeRecordRepository changeRecordRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Deve listar apenas a última alteração de cada livro e empréstimo após o token")
+    public void changesSinceTokenTest() {
+        long since = changeFeed.latest();
+        Book book = bookService.save(Book.builder().isbn("changes-1").author("Fulano").title("Sincronizado").build());
+        Loan loan = loanService.save(Loan.builder().book(book).customer(Customer.of("Ana", "ana@email.com")).loanDate(LocalDate.now()).build());
+        loanService.update(loan.getId(), current -> current.setReturned(true));
+        bookService.update(book.getId(), current -> current.setTitle("Sincronizado 2"));
+
+        ChangeBatch batch = changeFeed.since(since, 100);
+
+        assertThat( batch.getChanges() )
+                .extracting(ChangeRecord::getEntity, ChangeRecord::getEntityId)
+                .containsExactly(tuple(ChangeEntity.LOAN, loan.getId()), tuple(ChangeEntity.BOOK, book.getId()));
+        assertThat( batch.getBooks().get(book.getId()).getTitle() ).isEqualTo("Sincronizado 2");
+        assertThat( batch.getLoans().get(loan.getId()).getReturned() ).isTrue();
+        assertThat( batch.getNext() ).isEqualTo(changeFeed.latest());
+        assertThat( changeFeed.since(batch.getNext(), 100).getChanges() ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Não deve pular uma alteração que ainda pode ser confirmada")
+    public void stopsBeforeRecentGapTest() {
+        Instant now = Instant.parse("2026-01-10T12:00:00Z");
+        ChangeRecordRepository repository = Mockito.mock(ChangeRecordRepository.class);
+        Mockito.when( repository.findByIdGreaterThanOrderById(Mockito.eq(10L), Mockito.any(Pageable.class)) ).thenReturn(List.of(
+                change(11L, now.minusSeconds(1)),
+                change(13L, now.minusSeconds(1))));
+        ChangeFeedService service = new ChangeFeedServiceImpl(repository, Mockito.mock(BookRepository.class),
+                Mockito.mock(LoanRepository.class), Clock.fixed(now, ZoneOffset.UTC), Duration.ofSeconds(5));
+
+        assertThat( service.since(10L, 100).getNext() ).isEqualTo(11L);
+
+        service = new ChangeFeedServiceImpl(repository, Mockito.mock(BookRepository.class),
+                Mockito.mock(LoanRepository.class), Clock.fixed(now.plusSeconds(10), ZoneOffset.UTC), Duration.ofSeconds(5));
+
+        ChangeBatch settled = service.since(10L, 100);
+        assertThat( settled.getNext() ).isEqualTo(13L);
+        assertThat( settled.getBooks() ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve datar a alteração no fim da transação que a registrou")
+    public void recordsAtCommitTest() {
+        Instant start = Instant.parse("2026-01-10T12:00:00Z");
+        MutableClock clock = new MutableClock(start);
+        ChangeFeedService service = new ChangeFeedServiceImpl(changeRecordRepository, bookRepository,
+                loanRepository, clock, Duration.ofSeconds(5));
+        long since = changeFeed.latest();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            service.record(ChangeEntity.BOOK, 999L);
+            clock.now = start.plusSeconds(30);
+        });
+
+        assertThat( changeRecordRepository.findByIdGreaterThanOrderById(since, Pageable.unpaged()) )
+                .extracting(ChangeRecord::getRecordedAt)
+                .containsExactly(LocalDateTime.ofInstant(start.plusSeconds(30), ZoneOffset.UTC));
+    }
+
+    private static ChangeRecord change(Long id, Instant recordedAt) {
+        return ChangeRecord.builder()
+                .id(id)
+                .entity(ChangeEntity.BOOK)
+                .entityId(id)
+                .recordedAt(LocalDateTime.ofInstant(recordedAt, ZoneOffset.UTC))
+                .build();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.CheckoutItem;
+import com.example.librarywithmockito.model.CheckoutStatus;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class CopyAllocationTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve emprestar exatamente o número de cópias de um livro disputado")
+    public void claimsNoMoreThanAvailableCopiesTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().isbn("bestseller-1").author("Fulano").title("Disputado").copies(5).build());
+        AtomicInteger loaned = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+
+        run(THREADS * 25, attempt -> {
+            try {
+                loanService.save(loan(book, attempt));
+                loaned.incrementAndGet();
+            } catch (BusinessException ex) {
+                refused.incrementAndGet();
+            }
+        });
+
+        assertThat( loaned.get() ).isEqualTo(5);
+        assertThat( refused.get() ).isEqualTo(THREADS * 25 - 5);
+        assertThat( bookRepository.findById(book.getId()).get().getAvailableCopies() ).isZero();
+        assertThat( loanRepository.countByBook(book) ).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Deve manter o estoque consistente com empréstimos e devoluções concorrentes")
+    public void keepsInventoryConsistentWithReturnsTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().isbn("bestseller-2").author("Fulano").title("Disputado").copies(3).build());
+        AtomicInteger onLoan = new AtomicInteger();
+        AtomicInteger maxOnLoan = new AtomicInteger();
+        AtomicInteger loaned = new AtomicInteger();
+
+        run(THREADS * 25, attempt -> {
+            Loan loan;
+            try {
+                loan = loanService.save(loan(book, attempt));
+            } catch (BusinessException ex) {
+                return;
+            }
+            loaned.incrementAndGet();
+            maxOnLoan.accumulateAndGet(onLoan.incrementAndGet(), Math::max);
+            onLoan.decrementAndGet();
+            loanService.update(loan.getId(), current -> current.setReturned(true));
+        });
+
+        assertThat( loaned.get() ).isGreaterThanOrEqualTo(3);
+        assertThat( maxOnLoan.get() ).isLessThanOrEqualTo(3);
+        assertThat( bookRepository.findById(book.getId()).get().getAvailableCopies() ).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve emprestar listas concorrentes sem exceder as cópias e devolver as reservadas quando a lista falha")
+    public void checkoutClaimsCopiesTogetherTest() throws Exception {
+        Book first = bookRepository.save(Book.builder().isbn("bestseller-3").author("Fulano").title("Disputado").copies(2).build());
+        Book second = bookRepository.save(Book.builder().isbn("bestseller-4").author("Fulano").title("Disputado").copies(2).build());
+        AtomicInteger complete = new AtomicInteger();
+
+        run(THREADS * 10, attempt -> {
+            List<String> isbns = attempt % 2 == 0 ? List.of("bestseller-3", "bestseller-4") : List.of("bestseller-4", "bestseller-3");
+            List<CheckoutItem> items = loanService.checkout("Leitor " + attempt % 10, "leitor" + attempt % 10 + "@email.com", isbns, false);
+            if( items.stream().allMatch(item -> item.getStatus() == CheckoutStatus.LOANED) ){
+                complete.incrementAndGet();
+            }
+        });
+
+        assertThat( complete.get() ).isEqualTo(2);
+        assertThat( bookRepository.findById(first.getId()).get().getAvailableCopies() ).isZero();
+        assertThat( bookRepository.findById(second.getId()).get().getAvailableCopies() ).isZero();
+        assertThat( loanRepository.countByBook(first) ).isEqualTo(2);
+        assertThat( loanRepository.countByBook(second) ).isEqualTo(2);
+    }
+
+    private static Loan loan(Book book, int attempt) {
+        return Loan.builder()
+                .book(book)
+                .customer(Customer.of("Leitor " + attempt % 10, "leitor" + attempt % 10 + "@email.com"))
+                .loanDate(LocalDate.now())
+                .build();
+    }
+
+    private static void run(int attempts, IntConsumer attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                int current = i;
+                futures.add(executor.submit(() -> attempt.accept(current)));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
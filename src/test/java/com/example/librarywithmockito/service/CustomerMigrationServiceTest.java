@@ -0,0 +1,116 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.CustomerRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.SchedulerLockRepository;
+import com.example.librarywithmockito.service.impl.SchedulerLockServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs outside a test transaction: the migration commits batch by batch and alters the schema.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CustomerMigrationServiceTest {
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve migrar os clientes dos empréstimos antigos em lotes e remover as colunas legadas")
+    public void migrateLegacyCustomersTest(){
+        jdbc.execute(" alter table loan add column customer varchar(100) ");
+        jdbc.execute(" alter table loan add column customer_email varchar(255) ");
+        Book first = bookRepository.save(Book.builder().isbn("migration-1").title("Dom Casmurro").author("Machado").build());
+        Book second = bookRepository.save(Book.builder().isbn("migration-2").title("Iracema").author("Alencar").build());
+        Book third = bookRepository.save(Book.builder().isbn("migration-3").title("Senhora").author("Alencar").build());
+        insertLegacyLoan(first, "Ana", "ana@email.com");
+        insertLegacyLoan(second, "Ana", "ana@email.com");
+        insertLegacyLoan(third, "Bruno", null);
+
+        var migration = new CustomerMigrationService(jdbc, transactionManager, lockService("replica-1"), 2, true);
+
+        assertThat( migration.migrate() ).isEqualTo(3);
+        assertThat( customerRepository.count() ).isEqualTo(2);
+        assertThat( loanRepository.findAll() )
+                .extracting(Loan::getCustomerName, Loan::getCustomerEmail)
+                .containsExactlyInAnyOrder(
+                        tuple("Ana", "ana@email.com"),
+                        tuple("Ana", "ana@email.com"),
+                        tuple("Bruno", null));
+        assertThat( migration.migrate() ).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve migrar uma única vez quando duas réplicas iniciam juntas")
+    public void concurrentMigrationTest(){
+        jdbc.execute(" alter table loan add column customer varchar(100) ");
+        jdbc.execute(" alter table loan add column customer_email varchar(255) ");
+        for (int i = 0; i < 5; i++) {
+            Book book = bookRepository.save(Book.builder().isbn("concurrent-" + i).title("Livro " + i).author("Autor").build());
+            insertLegacyLoan(book, i % 2 == 0 ? "Ana" : "Bruno", i % 2 == 0 ? "ana@email.com" : null);
+        }
+        var first = new CustomerMigrationService(jdbc, transactionManager, lockService("replica-1"), 2, true);
+        var second = new CustomerMigrationService(jdbc, transactionManager, lockService("replica-2"), 2, true);
+
+        var runs = CompletableFuture.supplyAsync(first::migrate)
+                .thenCombine(CompletableFuture.supplyAsync(second::migrate), Integer::sum);
+
+        assertThat( runs.join() ).isEqualTo(5);
+        assertThat( customerRepository.count() ).isEqualTo(2);
+    }
+
+    private SchedulerLockService lockService(String owner) {
+        return new SchedulerLockServiceImpl(schedulerLockRepository, owner);
+    }
+
+    private void insertLegacyLoan(Book book, String customer, String email) {
+        jdbc.update(" insert into loan (id, customer, customer_email, id_book, loan_date, returned, version) " +
+                " values (next value for loan_seq, ?, ?, ?, ?, false, 0) ", customer, email, book.getId(), LocalDate.now());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.HoldStatus;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class HoldQueueTest {
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    HoldService holdService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    @Test
+    @DisplayName("Deve entregar o livro devolvido às reservas na ordem em que foram feitas")
+    public void handOffInHoldOrderTest() {
+        Book book = bookRepository.save(Book.builder().isbn("hold-1").author("Fulano").title("Disputado").build());
+        Loan first = loanService.save(Loan.builder().book(book).customer(Customer.of("Ana", "ana@email.com")).loanDate(LocalDate.now()).build());
+
+        BookHold bruno = loanService.hold(book, "Bruno", "bruno@email.com");
+        BookHold carla = loanService.hold(book, "Carla", "carla@email.com");
+        assertThat( holdService.position(bruno) ).isEqualTo(1);
+        assertThat( holdService.position(carla) ).isEqualTo(2);
+
+        loanService.update(first.getId(), loan -> loan.setReturned(true));
+
+        BookHold served = holdService.getById(bruno.getId()).get();
+        assertThat( served.getStatus() ).isEqualTo(HoldStatus.FULFILLED);
+        Loan second = loanRepository.findById(served.getLoanId()).get();
+        assertThat( second.getCustomerName() ).isEqualTo("Bruno");
+        assertThat( holdService.position(holdService.getById(carla.getId()).get()) ).isEqualTo(1);
+        assertThat( bookRepository.findById(book.getId()).get().getAvailableCopies() ).isZero();
+        verify(emailService, timeout(5_000)).sendMail(eq("bruno@email.com"), anyString(), anyString());
+
+        loanService.update(second.getId(), loan -> loan.setReturned(true));
+        assertThat( holdService.getById(carla.getId()).get().getStatus() ).isEqualTo(HoldStatus.FULFILLED);
+
+        loanService.update(holdService.getById(carla.getId()).get().getLoanId(), loan -> loan.setReturned(true));
+        assertThat( bookRepository.findById(book.getId()).get().getAvailableCopies() ).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve entregar cópias novas às reservas antes de colocá-las na estante")
+    public void handOffAddedCopiesTest() {
+        Book book = bookRepository.save(Book.builder().isbn("hold-2").author("Fulano").title("Disputado").build());
+        loanService.save(Loan.builder().book(book).customer(Customer.of("Ana", "ana@email.com")).loanDate(LocalDate.now()).build());
+        BookHold bruno = loanService.hold(book, "Bruno", "bruno@email.com");
+
+        Book updated = loanService.addCopies(book.getId(), 2).get();
+
+        assertThat( holdService.getById(bruno.getId()).get().getStatus() ).isEqualTo(HoldStatus.FULFILLED);
+        assertThat( updated.getAvailableCopies() ).isEqualTo(1);
+        assertThat( bookRepository.findById(book.getId()).get().getAvailableCopies() ).isEqualTo(1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.service.impl.InMemoryIdempotencyStore;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IdempotencyStoreTest {
+
+    @Test
+    @DisplayName("Deve retornar a resposta armazenada para a chave")
+    public void findStoredResponseTest(){
+        IdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10);
+
+        store.putIfAbsent("loans:abc", "1");
+
+        assertThat( store.find("loans:abc") ).contains("1");
+        assertThat( store.find("loans:other") ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve manter a primeira resposta armazenada para a chave")
+    public void firstResponseWinsTest(){
+        IdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 10);
+
+        assertThat( store.putIfAbsent("loans:abc", "1") ).isEqualTo("1");
+        assertThat( store.putIfAbsent("loans:abc", "2") ).isEqualTo("1");
+
+        assertThat( store.find("loans:abc") ).contains("1");
+    }
+
+    @Test
+    @DisplayName("Deve descartar respostas expiradas")
+    public void expiredResponseTest(){
+        IdempotencyStore store = new InMemoryIdempotencyStore(Duration.ZERO, 10);
+
+        store.putIfAbsent("loans:abc", "1");
+
+        assertThat( store.find("loans:abc") ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve descartar a chave menos usada quando o limite for atingido")
+    public void boundedStoreTest(){
+        IdempotencyStore store = new InMemoryIdempotencyStore(Duration.ofMinutes(1), 2);
+
+        store.putIfAbsent("loans:1", "1");
+        store.putIfAbsent("loans:2", "2");
+        store.find("loans:1");
+        store.putIfAbsent("loans:3", "3");
+
+        assertThat( store.find("loans:1") ).contains("1");
+        assertThat( store.find("loans:2") ).isEmpty();
+        assertThat( store.find("loans:3") ).contains("3");
+    }
+}
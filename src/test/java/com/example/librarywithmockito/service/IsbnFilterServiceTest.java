@@ -0,0 +1,66 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.service.impl.IsbnFilterServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class IsbnFilterServiceTest {
+
+    @Test
+    @DisplayName("Deve reconstruir o filtro periodicamente para ver isbns cadastrados em outras instâncias")
+    public void rebuildWhenOlderThanMaxAgeTest() {
+        BookRepository repository = Mockito.mock(BookRepository.class);
+        MutableClock clock = new MutableClock(Instant.parse("2026-01-10T12:00:00Z"));
+        IsbnFilterService filter = new IsbnFilterServiceImpl(repository, 0.01, 1000, Duration.ofMinutes(5),
+                new SimpleMeterRegistry(), clock);
+        when( repository.count() ).thenReturn(1L);
+        when( repository.streamAllIsbns() ).thenReturn(Stream.of("111")).thenReturn(Stream.of("111", "222"));
+
+        filter.rebuild();
+        assertThat( filter.mightExist("222") ).isFalse();
+
+        clock.now = clock.now.plus(Duration.ofMinutes(4));
+        filter.rebuildIfStale();
+        assertThat( filter.mightExist("222") ).isFalse();
+
+        clock.now = clock.now.plus(Duration.ofMinutes(1));
+        filter.rebuildIfStale();
+        assertThat( filter.mightExist("222") ).isTrue();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.repository.IdempotentResponseRepository;
+import com.example.librarywithmockito.service.impl.JpaIdempotencyStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class JpaIdempotencyStoreTest {
+
+    @Autowired
+    IdempotentResponseRepository repository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    IdempotencyStore replicaA;
+    IdempotencyStore replicaB;
+
+    @BeforeEach
+    public void setUp(){
+        replicaA = new JpaIdempotencyStore(repository, entityManager, transactionManager, Duration.ofMinutes(1));
+        replicaB = new JpaIdempotencyStore(repository, entityManager, transactionManager, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Não deve sobrescrever a resposta que outra réplica já armazenou")
+    public void firstReplicaWinsTest(){
+        String key = "loans:" + UUID.randomUUID();
+
+        assertThat( replicaA.putIfAbsent(key, "1") ).isEqualTo("1");
+        assertThat( replicaB.putIfAbsent(key, "2") ).isEqualTo("1");
+
+        assertThat( replicaB.find(key) ).contains("1");
+    }
+
+    @Test
+    @DisplayName("Deve assumir a chave cuja resposta expirou e ainda não foi removida")
+    public void replaceExpiredResponseTest(){
+        String key = "loans:" + UUID.randomUUID();
+        new JpaIdempotencyStore(repository, entityManager, transactionManager, Duration.ZERO).putIfAbsent(key, "1");
+
+        assertThat( replicaB.putIfAbsent(key, "2") ).isEqualTo("2");
+        assertThat( replicaA.find(key) ).contains("2");
+    }
+
+    @Test
+    @DisplayName("Deve armazenar respostas grandes sem truncar")
+    public void largeResponseTest(){
+        String key = "books:" + UUID.randomUUID();
+        String body = "x".repeat(20_000);
+
+        replicaA.putIfAbsent(key, body);
+
+        assertThat( replicaB.find(key) ).contains(body);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.CustomerRepository;
+import com.example.librarywithmockito.repository.LoanReminderRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.service.impl.LoanReminderServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs outside a test transaction: the sent-reminder claim relies on a committed unique key.
+ */
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class LoanReminderServiceTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanReminderRepository reminderRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @MockBean
+    EmailService emailService;
+
+    MutableClock clock = new MutableClock(Instant.parse("2021-10-04T08:00:00Z"));
+
+    @AfterEach
+    public void tearDown(){
+        reminderRepository.deleteAll();
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve lembrar na véspera e no vencimento, uma única vez mesmo após reinício")
+    public void shouldSendEachReminderOnceAcrossRestartsTest(){
+        Book book = bookRepository.save(Book.builder().isbn("reminder-1").title("Dom Casmurro").author("Machado").build());
+        loanRepository.save(Loan.builder().book(book).customer(customer("Ana", "ana@email.com"))
+                .loanDate(LocalDate.of(2021, 10, 1)).returned(false).build());
+        LoanReminderService replicaA = newService();
+        replicaA.reload();
+
+        assertThat( replicaA.sendDueReminders() ).isZero();
+
+        clock.now = Instant.parse("2021-10-04T09:00:00Z");
+        assertThat( replicaA.sendDueReminders() ).isEqualTo(1);
+        verify(emailService).sendMail(eq("ana@email.com"), eq("amanhã"), eq("Ana: Dom Casmurro até 05/10/2021"));
+
+        LoanReminderService replicaB = newService();
+        replicaB.reload();
+        clock.now = Instant.parse("2021-10-05T09:00:00Z");
+
+        assertThat( replicaA.sendDueReminders() + replicaB.sendDueReminders() ).isEqualTo(1);
+        verify(emailService).sendMail(eq("ana@email.com"), eq("atrasado"), eq("Ana: Dom Casmurro em 05/10/2021"));
+        verify(emailService, times(2)).sendMail(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Não deve lembrar empréstimos devolvidos")
+    public void shouldNotRemindReturnedLoansTest(){
+        Book book = bookRepository.save(Book.builder().isbn("reminder-2").title("Iracema").author("Alencar").build());
+        Loan loan = loanRepository.save(Loan.builder().book(book).customer(customer("Bruno", "bruno@email.com"))
+                .loanDate(LocalDate.of(2021, 10, 1)).returned(false).build());
+        LoanReminderService service = newService();
+        service.reload();
+
+        loan.setReturned(true);
+        service.loanChanged(loan);
+        clock.now = Instant.parse("2021-10-06T09:00:00Z");
+
+        assertThat( service.sendDueReminders() ).isZero();
+        verifyNoInteractions(emailService);
+    }
+
+    private Customer customer(String name, String email) {
+        return customerRepository.save(Customer.of(name, email));
+    }
+
+    private LoanReminderService newService() {
+        return new LoanReminderServiceImpl(loanRepository, reminderRepository, emailService, clock, 60_000,
+                LocalTime.of(9, 0), Duration.ofDays(1),
+                "amanhã", "{customer}: {title} até {dueDate}",
+                "atrasado", "{customer}: {title} em {dueDate}");
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
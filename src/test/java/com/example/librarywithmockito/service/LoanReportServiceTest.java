@@ -0,0 +1,176 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookPopularity;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.CustomerLoanHistory;
+import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.LoanEvent;
+import com.example.librarywithmockito.model.LoanEventType;
+import com.example.librarywithmockito.model.ProjectionCheckpoint;
+import com.example.librarywithmockito.repository.ActiveLoanRepository;
+import com.example.librarywithmockito.repository.BookPopularityRepository;
+import com.example.librarywithmockito.repository.CustomerLoanHistoryRepository;
+import com.example.librarywithmockito.repository.CustomerRepository;
+import com.example.librarywithmockito.repository.LoanArchiveRepository;
+import com.example.librarywithmockito.repository.LoanEventRepository;
+import com.example.librarywithmockito.repository.BookRepository;
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.ProjectionCheckpointRepository;
+import com.example.librarywithmockito.service.impl.CustomerServiceImpl;
+import com.example.librarywithmockito.service.impl.LoanReportServiceImpl;
+import com.example.librarywithmockito.service.impl.LoanServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class LoanReportServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanArchiveRepository archiveRepository;
+
+    @Autowired
+    LoanEventRepository eventRepository;
+
+    @Autowired
+    ProjectionCheckpointRepository checkpointRepository;
+
+    @Autowired
+    CustomerLoanHistoryRepository historyRepository;
+
+    @Autowired
+    BookPopularityRepository popularityRepository;
+
+    @Autowired
+    ActiveLoanRepository activeLoanRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    CustomerService customerService;
+    LoanService loanService;
+    LoanReportService reportService;
+
+    @BeforeEach
+    public void setUp(){
+        this.customerService = new CustomerServiceImpl(customerRepository, transactionManager);
+        BookService bookService = Mockito.mock(BookService.class);
+        Mockito.when(bookService.claimCopy(Mockito.any())).thenReturn(true);
+        this.loanService = new LoanServiceImpl(loanRepository, bookService, archiveRepository, eventRepository,
+                Mockito.mock(PopularBooksService.class), Mockito.mock(LoanReminderService.class), customerService,
+                Mockito.mock(HoldService.class), Mockito.mock(ChangeFeedService.class));
+        this.reportService = new LoanReportServiceImpl(eventRepository, checkpointRepository,
+                historyRepository, popularityRepository, activeLoanRepository, Clock.systemDefaultZone(), Duration.ZERO);
+    }
+
+    @Test
+    @DisplayName("Deve projetar histórico, popularidade e atrasos a partir dos eventos")
+    public void projectEventsTest(){
+        Book popular = persistBook("001");
+        Book other = persistBook("002");
+        Loan returned = loanService.save(loan(popular, "Fulano", LocalDate.now().minusDays(10)));
+        returned.setReturned(true);
+        loanService.update(returned);
+        loanService.save(loan(popular, "Ciclano", LocalDate.now().minusDays(5)));
+        loanService.save(loan(other, "Fulano", LocalDate.now()));
+
+        assertThat( reportService.projectEvents(100) ).isEqualTo(4);
+        assertThat( reportService.projectEvents(100) ).isZero();
+
+        List<CustomerLoanHistory> history = reportService.getCustomerHistory("Fulano", PageRequest.of(0, 10)).getContent();
+        assertThat( history ).hasSize(2);
+        assertThat( history.get(1).getReturnDate() ).isEqualTo(LocalDate.now());
+
+        List<BookPopularity> popularBooks = reportService.getMostPopularBooks(1);
+        assertThat( popularBooks ).hasSize(1);
+        assertThat( popularBooks.get(0).getBookId() ).isEqualTo(popular.getId());
+        assertThat( popularBooks.get(0).getTotalLoans() ).isEqualTo(2);
+        assertThat( popularBooks.get(0).getActiveLoans() ).isEqualTo(1);
+
+        List<ActiveLoan> lateLoans = reportService.getLateLoans(PageRequest.of(0, 10)).getContent();
+        assertThat( lateLoans ).extracting(ActiveLoan::getCustomer).containsExactly("Ciclano");
+    }
+
+    @Test
+    @DisplayName("Deve incluir empréstimos gravados antes do log de eventos")
+    public void backfillExistingLoansTest(){
+        Book book = persistBook("003");
+        Loan legacy = loan(book, "Beltrano", LocalDate.now().minusDays(7));
+        legacy.setCustomer(customerService.resolve("Beltrano", "Beltrano@email.com"));
+        legacy.setReturned(true);
+        legacy.setReturnDate(LocalDate.now().minusDays(1));
+        entityManager.persist(legacy);
+        entityManager.flush();
+
+        reportService.projectEvents(100);
+
+        assertThat( reportService.getCustomerHistory("Beltrano", PageRequest.of(0, 10)).getContent() )
+                .extracting(CustomerLoanHistory::getReturnDate)
+                .containsExactly(LocalDate.now().minusDays(1));
+        assertThat( reportService.getLateLoans(PageRequest.of(0, 10)).getContent() ).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Não deve avançar o checkpoint além de um evento que ainda pode ser confirmado")
+    public void stopsBeforeRecentGapTest(){
+        LocalDateTime now = LocalDateTime.of(2026, 1, 10, 12, 0);
+        LoanEventRepository events = Mockito.mock(LoanEventRepository.class);
+        Mockito.when( events.findByIdGreaterThanOrderById(Mockito.eq(0L), Mockito.any(Pageable.class)) ).thenReturn(List.of(
+                event(1L, now.minusSeconds(1)),
+                event(3L, now.minusSeconds(1))));
+        Clock clock = Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        LoanReportService service = new LoanReportServiceImpl(events, checkpointRepository,
+                historyRepository, popularityRepository, activeLoanRepository, clock, Duration.ofMinutes(1));
+
+        assertThat( service.projectEvents(100) ).isEqualTo(1);
+        assertThat( checkpointRepository.findAll() ).extracting(ProjectionCheckpoint::getLastEventId).containsExactly(1L);
+    }
+
+    private static LoanEvent event(Long id, LocalDateTime occurredAt) {
+        return LoanEvent.builder().id(id).loanId(id).customer("Fulano").type(LoanEventType.CREATED)
+                .loanDate(LocalDate.now()).occurredAt(occurredAt).build();
+    }
+
+    private Book persistBook(String isbn) {
+        return entityManager.persist(Book.builder().isbn(isbn).author("Fulano").title("As aventuras").build());
+    }
+
+    private static Loan loan(Book book, String customer, LocalDate loanDate) {
+        return Loan.builder().book(book).customer(Customer.of(customer, customer + "@email.com")).loanDate(loanDate).build();
+    }
+}
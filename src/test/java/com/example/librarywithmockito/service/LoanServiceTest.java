@@ -1,8 +1,19 @@
 package com.example.librarywithmockito.service;
 
 import com.example.librarywithmockito.exception.BusinessException;
+import com.example.librarywithmockito.exception.ErrorCode;
 import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.model.BookHold;
+import com.example.librarywithmockito.model.CheckoutItem;
+import com.example.librarywithmockito.model.CheckoutStatus;
+import com.example.librarywithmockito.model.Customer;
+import com.example.librarywithmockito.model.HoldStatus;
 import com.example.librarywithmockito.model.Loan;
+import com.example.librarywithmockito.model.LoanArchive;
+import com.example.librarywithmockito.model.LoanEvent;
+import com.example.librarywithmockito.model.LoanEventType;
+import com.example.librarywithmockito.repository.LoanArchiveRepository;
+import com.example.librarywithmockito.repository.LoanEventRepository;
 import com.example.librarywithmockito.repository.LoanRepository;
 import com.example.librarywithmockito.service.impl.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,11 +22,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -30,16 +50,40 @@ public class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanArchiveRepository archiveRepository;
+
+    @MockBean
+    LoanEventRepository eventRepository;
+
+    @MockBean
+    PopularBooksService popularBooksService;
+
+    @MockBean
+    LoanReminderService reminderService;
+
+    @MockBean
+    CustomerService customerService;
+
+    @MockBean
+    HoldService holdService;
+
+    @MockBean
+    ChangeFeedService changeFeed;
+
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, bookService, archiveRepository, eventRepository, popularBooksService, reminderService, customerService, holdService, changeFeed);
     }
 
     @Test
     @DisplayName("Deve salvar um empréstimo")
     public void saveLoanTest(){
         Book book = Book.builder().id(1l).build();
-        String customer = "Fulano";
+        Customer customer = Customer.builder().id(1l).name("Fulano").build();
 
         Loan savingLoan =
                 Loan.builder()
@@ -55,7 +99,7 @@ public class LoanServiceTest {
                 .book(book).build();
 
 
-        when( repository.existsByBookAndNotReturned(book) ).thenReturn(false);
+        when( bookService.claimCopy(book) ).thenReturn(true);
         when( repository.save(savingLoan) ).thenReturn( savedLoan );
 
         Loan loan = service.save(savingLoan);
@@ -64,13 +108,79 @@ public class LoanServiceTest {
         assertThat(loan.getBook().getId()).isEqualTo(savedLoan.getBook().getId());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        verify(eventRepository).save(Mockito.argThat( (LoanEvent event) ->
+                event.getType() == LoanEventType.CREATED && event.getLoanId().equals(savedLoan.getId()) ));
+        verify(popularBooksService).recordLoan(book.getId());
+    }
+
+    @Test
+    @DisplayName("Deve emprestar os livros disponíveis e informar o resultado de cada isbn")
+    public void partialCheckoutTest(){
+        mockCheckoutBooks();
+
+        List<CheckoutItem> items = service.checkout("Fulano", "fulano@email.com",
+                Arrays.asList("111", "222", "333", "111"), true);
+
+        assertThat(items).extracting(CheckoutItem::getStatus).containsExactly(
+                CheckoutStatus.LOANED, CheckoutStatus.ALREADY_LOANED, CheckoutStatus.BOOK_NOT_FOUND, CheckoutStatus.DUPLICATED);
+        assertThat(items.get(0).getLoan().getId()).isEqualTo(10L);
+        verify(repository).saveAll(Mockito.argThat( (Iterable<Loan> loans) -> loans.iterator().next().getBook().getId() == 1L ));
+        verify(eventRepository, times(1)).save(Mockito.any(LoanEvent.class));
+        verify(bookService, never()).releaseCopies(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve informar os livros com reservas aguardando sem reservar uma cópia para eles")
+    public void onHoldCheckoutTest(){
+        mockCheckoutBooks();
+        when( holdService.withWaiting(Mockito.anyCollection()) ).thenReturn(Set.of(2L));
+
+        List<CheckoutItem> items = service.checkout("Fulano", "fulano@email.com",
+                Arrays.asList("111", "222"), true);
+
+        assertThat(items).extracting(CheckoutItem::getStatus).containsExactly(
+                CheckoutStatus.LOANED, CheckoutStatus.ON_HOLD);
+        verify(bookService).claimCopies(Mockito.argThat( (Collection<Book> books) ->
+                books.stream().map(Book::getId).collect(Collectors.toList()).equals(List.of(1L)) ));
+    }
+
+    @Test
+    @DisplayName("Não deve emprestar nenhum livro quando um deles não está disponível e o empréstimo é atômico")
+    public void atomicCheckoutTest(){
+        mockCheckoutBooks();
+
+        List<CheckoutItem> items = service.checkout("Fulano", "fulano@email.com",
+                Arrays.asList("111", "222"), false);
+
+        assertThat(items).extracting(CheckoutItem::getStatus).containsExactly(
+                CheckoutStatus.NOT_PROCESSED, CheckoutStatus.ALREADY_LOANED);
+        verify(repository, never()).saveAll(Mockito.any());
+        verify(bookService).releaseCopies(Mockito.argThat( (Collection<Book> books) ->
+                books.size() == 1 && books.iterator().next().getId() == 1L ));
+        verifyNoInteractions(eventRepository);
+    }
+
+    private void mockCheckoutBooks() {
+        Book available = Book.builder().id(1L).isbn("111").build();
+        Book loaned = Book.builder().id(2L).isbn("222").build();
+        when( bookService.getByIsbns(Mockito.anyCollection()) ).thenReturn(Arrays.asList(available, loaned));
+        when( holdService.withWaiting(Mockito.anyCollection()) ).thenReturn(Set.of());
+        when( bookService.claimCopies(Mockito.anyCollection()) ).thenAnswer(invocation -> {
+            Collection<Book> books = invocation.getArgument(0);
+            return books.contains(available) ? Set.of(available.getId()) : Set.of();
+        });
+        when( repository.saveAll(Mockito.anyCollection()) ).thenAnswer(invocation -> {
+            List<Loan> loans = invocation.getArgument(0);
+            loans.forEach(loan -> loan.setId(loan.getBook().getId() * 10));
+            return loans;
+        });
     }
 
     @Test
     @DisplayName("Deve lançar erro de negócio ao salvar um empréstimo com livro já emprestado")
     public void loanedBookSaveTest(){
         Book book = Book.builder().id(1l).build();
-        String customer = "Fulano";
+        Customer customer = Customer.builder().id(1l).name("Fulano").build();
 
         Loan savingLoan =
                 Loan.builder()
@@ -79,7 +189,7 @@ public class LoanServiceTest {
                         .loanDate(LocalDate.now())
                         .build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(bookService.claimCopy(book)).thenReturn(false);
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
@@ -91,6 +201,21 @@ public class LoanServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Não deve emprestar no balcão um livro com reservas aguardando")
+    public void bookOnHoldSaveTest(){
+        Book book = Book.builder().id(1l).build();
+        Loan savingLoan = Loan.builder().book(book).customer(Customer.of("Fulano", null)).loanDate(LocalDate.now()).build();
+
+        when(holdService.hasWaiting(book)).thenReturn(true);
+
+        Throwable exception = catchThrowable(() -> service.save(savingLoan));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book is reserved for customers waiting on hold");
+        verify(bookService, never()).claimCopy(book);
+        verify(repository, never()).save(savingLoan);
+    }
+
     @Test
     @DisplayName(" Deve obter as informações de um empréstimo pelo ID")
     public void getLoanDetaisTest(){
@@ -128,12 +253,102 @@ public class LoanServiceTest {
         Loan updatedLoan = service.update(loan);
 
         assertThat(updatedLoan.getReturned()).isTrue();
+        assertThat(updatedLoan.getReturnDate()).isEqualTo(LocalDate.now());
         verify(repository).save(loan);
+        verify(bookService).releaseCopy(loan.getBook());
+        verify(eventRepository).save(Mockito.argThat( (LoanEvent event) -> event.getType() == LoanEventType.RETURNED ));
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro devolvido para a reserva mais antiga")
+    public void handOffReturnedBookToHoldTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        Customer waiting = Customer.builder().id(2l).name("Ciclano").email("ciclano@email.com").build();
+        BookHold hold = BookHold.builder().id(5l).book(loan.getBook()).customer(waiting).status(HoldStatus.FULFILLED).build();
+        Loan handedOff = Loan.builder().id(2l).book(loan.getBook()).customer(waiting).loanDate(LocalDate.now()).build();
+
+        when( repository.save(loan) ).thenReturn( loan );
+        when( holdService.claimNext(loan.getBook()) ).thenReturn( Optional.of(hold) );
+        when( repository.save(Mockito.argThat( (Loan saving) -> saving != loan )) ).thenReturn( handedOff );
+
+        service.update(loan);
+
+        verify(repository).save(Mockito.argThat( (Loan saving) -> saving.getCustomer() == waiting && saving.getId() == null ));
+        verify(holdService).fulfilled(hold, handedOff);
+        verify(bookService, never()).releaseCopy(Mockito.any());
+        verify(eventRepository).save(Mockito.argThat( (LoanEvent event) ->
+                event.getType() == LoanEventType.CREATED && event.getLoanId().equals(2l) ));
+    }
+
+    @Test
+    @DisplayName("Deve mover um lote de empréstimos devolvidos para o arquivo.")
+    public void archiveReturnedLoansTest(){
+        Loan loan = createLoan();
+        loan.setId(1l);
+        loan.setReturned(true);
+        loan.setReturnDate(LocalDate.now().minusDays(40));
+        List<Loan> batch = Arrays.asList(loan);
+        LocalDate returnedBefore = LocalDate.now().minusDays(30);
+
+        when( repository.findReturnedBefore(returnedBefore, PageRequest.of(0, 10)) ).thenReturn(batch);
+
+        int archived = service.archiveReturnedLoans(returnedBefore, 10);
+
+        assertThat(archived).isEqualTo(1);
+        verify(archiveRepository).saveAll(Mockito.argThat( (List<LoanArchive> archives) ->
+                archives.size() == 1 && archives.get(0).getId().equals(1l) ));
+        verify(repository).deleteAllInBatch(batch);
+    }
+
+    @Test
+    @DisplayName("Deve completar a página de empréstimos do livro com o histórico arquivado.")
+    public void getLoansByBookWithHistoryTest(){
+        Book book = Book.builder().id(1l).build();
+        Loan active = createLoan();
+        active.setId(3l);
+        LoanArchive archived = LoanArchive.builder().id(2l).book(book).customer("Fulano").build();
+
+        when( repository.countByBook(book) ).thenReturn(1l);
+        when( repository.findByBookOrderById(book, PageRequest.of(0, 2)) ).thenReturn(Arrays.asList(active));
+        when( archiveRepository.countByBook(book) ).thenReturn(2l);
+        when( archiveRepository.findSliceByBook(1l, 0, 1) ).thenReturn(Arrays.asList(archived));
+
+        Pageable pageable = PageRequest.of(0, 2);
+        Page<Loan> result = service.getLoansByBook(book, pageable, true);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getContent()).extracting(Loan::getId).containsExactly(3l, 2l);
+        assertThat(result.getContent().get(1).getReturned()).isTrue();
+        verify(repository, never()).findByBook(book, pageable);
+    }
+
+    @Test
+    @DisplayName("Deve ler apenas o arquivo quando a página começa depois dos empréstimos ativos e recusar outra ordenação.")
+    public void getLoansByBookHistoryPageTest(){
+        Book book = Book.builder().id(1l).build();
+        LoanArchive archived = LoanArchive.builder().id(7l).book(book).customer("Fulano").build();
+
+        when( repository.countByBook(book) ).thenReturn(3l);
+        when( archiveRepository.countByBook(book) ).thenReturn(10l);
+        when( archiveRepository.findSliceByBook(1l, 1, 2) ).thenReturn(Arrays.asList(archived));
+
+        Page<Loan> result = service.getLoansByBook(book, PageRequest.of(2, 2), true);
+
+        assertThat(result.getTotalElements()).isEqualTo(13);
+        assertThat(result.getContent()).extracting(Loan::getId).containsExactly(7l);
+        verify(repository, never()).findByBookOrderById(Mockito.any(), Mockito.any());
+
+        Throwable exception = catchThrowable(() ->
+                service.getLoansByBook(book, PageRequest.of(0, 2, Sort.by("loanDate")), true));
+        assertThat(exception).isInstanceOf(BusinessException.class)
+                .hasMessage(ErrorCode.UNSUPPORTED_HISTORY_SORT.getMessage());
     }
 
     public static Loan createLoan(){
         Book book = Book.builder().id(1l).build();
-        String customer = "Fulano";
+        Customer customer = Customer.builder().id(1l).name("Fulano").build();
 
         return Loan.builder()
                 .book(book)
@@ -0,0 +1,155 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.Book;
+import com.example.librarywithmockito.repository.BookRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "application.optimistic-lock.max-attempts=100")
+@ActiveProfiles("test")
+public class OptimisticLockingTest {
+
+    private static final int THREADS = 8;
+    private static final int WRITE_EVERY = 10;
+    private static final int HOT_BOOKS = 4;
+    private static final long READ_WORK_MILLIS = 5;
+    private static final long WRITE_WORK_MILLIS = 20;
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Não deve perder atualizações concorrentes no mesmo livro")
+    public void noLostUpdatesTest() throws Exception {
+        Book book = bookRepository.save(Book.builder().isbn("concurrent-1").author("Fulano").title("").build());
+        int updatesPerThread = 20;
+
+        run(THREADS * updatesPerThread, ignored ->
+                bookService.update(book.getId(), current -> current.setTitle(current.getTitle() + "x")));
+
+        Book updated = bookRepository.findById(book.getId()).get();
+        assertThat( updated.getTitle() ).hasSize(THREADS * updatesPerThread);
+        assertThat( updated.getVersion() ).isEqualTo(THREADS * updatesPerThread);
+    }
+
+    /**
+     * Opt-in: {@code mvn test -DexcludedGroups= -Dgroups=benchmark}
+     */
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Deve comparar a vazão com a serialização por lock pessimista sem perder atualizações")
+    public void throughputComparedToPessimisticLockingTest() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < HOT_BOOKS; i++) {
+            ids.add(bookRepository.save(Book.builder().isbn("hot-" + i).author("Fulano").title("0").build()).getId());
+        }
+        int operations = 2_000;
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LongConsumer optimisticWorkload = op -> {
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            if( op % WRITE_EVERY == 0 ){
+                bookService.update(id, book -> {
+                    work(WRITE_WORK_MILLIS);
+                    increment(book);
+                });
+            } else {
+                transaction.executeWithoutResult(status -> {
+                    entityManager.find(Book.class, id);
+                    work(READ_WORK_MILLIS);
+                });
+            }
+        };
+        LongConsumer pessimisticWorkload = op -> {
+            Long id = ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+            boolean write = op % WRITE_EVERY == 0;
+            transaction.executeWithoutResult(status -> {
+                Book book = entityManager.find(Book.class, id,
+                        write ? LockModeType.PESSIMISTIC_WRITE : LockModeType.PESSIMISTIC_READ);
+                if( write ){
+                    work(WRITE_WORK_MILLIS);
+                    increment(book);
+                    bookService.update(book);
+                } else {
+                    work(READ_WORK_MILLIS);
+                }
+            });
+        };
+        run(operations / 4, optimisticWorkload);
+        run(operations / 4, pessimisticWorkload);
+
+        long optimistic = run(operations, optimisticWorkload);
+        long pessimistic = run(operations, pessimisticWorkload);
+
+        double optimisticOps = operations * 1e9 / optimistic;
+        double pessimisticOps = operations * 1e9 / pessimistic;
+        log.info("optimistic: {} ops/s, pessimistic: {} ops/s", Math.round(optimisticOps), Math.round(pessimisticOps));
+
+        long written = ids.stream().map(id -> bookRepository.findById(id).get().getTitle())
+                .mapToLong(Long::parseLong).sum();
+        assertThat( written ).isEqualTo(2 * (operations + operations / 4) / WRITE_EVERY);
+        assertThat( optimisticOps ).isGreaterThan(pessimisticOps);
+    }
+
+    /**
+     * Stands for the request work done while the row is read, and written back for updates.
+     */
+    private static void work(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void increment(Book book) {
+        book.setTitle(String.valueOf(Long.parseLong(book.getTitle()) + 1));
+    }
+
+    private static long run(int operations, LongConsumer operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int op = 0; op < operations; op++) {
+                long current = op;
+                futures.add(executor.submit(() -> operation.accept(current)));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.repository.LoanRepository;
+import com.example.librarywithmockito.repository.projection.BookLoanCount;
+import com.example.librarywithmockito.service.impl.PopularBooksServiceImpl;
+import com.example.librarywithmockito.util.WindowedTopK;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class PopularBooksServiceTest {
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Deve reconstruir o ranking a partir dos empréstimos gravados")
+    public void rebuildTest(){
+        when( loanRepository.countLoansByBookAndDaySince(any()) ).thenReturn(Arrays.asList(
+                count(1L, LocalDate.now().minusDays(10), 8),
+                count(2L, LocalDate.now().minusDays(1), 3),
+                count(3L, LocalDate.now(), 5)
+        ));
+        PopularBooksService service = new PopularBooksServiceImpl(loanRepository,
+                Duration.ofHours(1), Duration.ofDays(30), 10, 0.01, 0.01);
+
+        service.rebuild();
+        service.recordLoan(2L);
+        WindowedTopK.Snapshot snapshot = service.getMostBorrowed(Duration.ofDays(7), 10);
+
+        assertThat( snapshot.getEntries() ).extracting(WindowedTopK.Entry::getKey).containsExactly(3L, 2L);
+        assertThat( snapshot.getEntries() ).extracting(WindowedTopK.Entry::getCount).containsExactly(5L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve manter empréstimos registrados durante a reconstrução do ranking")
+    public void recordDuringRebuildTest(){
+        PopularBooksService service = new PopularBooksServiceImpl(loanRepository,
+                Duration.ofHours(1), Duration.ofDays(30), 10, 0.01, 0.01);
+        when( loanRepository.countLoansByBookAndDaySince(any()) ).thenAnswer( invocation -> {
+            service.recordLoan(4L);
+            return Arrays.asList(count(3L, LocalDate.now(), 5));
+        });
+
+        service.rebuild();
+        WindowedTopK.Snapshot snapshot = service.getMostBorrowed(Duration.ofDays(1), 10);
+
+        assertThat( snapshot.getEntries() ).extracting(WindowedTopK.Entry::getKey).containsExactly(3L, 4L);
+    }
+
+    private static BookLoanCount count(Long bookId, LocalDate loanDate, int loans) {
+        return new SpelAwareProxyProjectionFactory().createProjection(BookLoanCount.class,
+                Map.of("bookId", bookId, "loanDate", loanDate, "loans", loans));
+    }
+}
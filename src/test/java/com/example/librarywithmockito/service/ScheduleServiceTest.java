@@ -0,0 +1,103 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.model.ActiveLoan;
+import com.example.librarywithmockito.model.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.MailSendException;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class ScheduleServiceTest {
+
+    ScheduleService service;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    LoanReportService loanReportService;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    EmailService emailService;
+
+    @MockBean
+    SchedulerLockService lockService;
+
+    @BeforeEach
+    public void setUp(){
+        service = new ScheduleService(loanService, loanReportService, bookService, emailService, lockService);
+        service.setLateLoansTemplate("Olá {customer},\n{loans}");
+        service.setLateLoanLineTemplate("- {title} até {dueDate}\n");
+    }
+
+    @Test
+    @DisplayName("Deve enviar um único e-mail por cliente com todos os empréstimos atrasados")
+    public void shouldSendOneDigestPerCustomerTest(){
+        LocalDate loanDate = LocalDate.of(2021, 10, 1);
+        when( loanReportService.getLateLoans(0, 4) ).thenReturn(Arrays.asList(
+                lateLoan(1L, 10L, "Ana", "ana@email.com", loanDate),
+                lateLoan(2L, 11L, "Ana", "ana@email.com", loanDate.plusDays(1)),
+                lateLoan(3L, 10L, "Bruno", "bruno@email.com", loanDate)
+        ));
+        when( bookService.getByIds(anyCollection()) ).thenReturn(Arrays.asList(
+                Book.builder().id(10L).title("Dom Casmurro").build(),
+                Book.builder().id(11L).title("Iracema").build()
+        ));
+        ReflectionTestUtils.setField(service, "lateLoanShards", 4);
+
+        service.sendMailToLateLoans(0);
+
+        ArgumentCaptor<String> text = ArgumentCaptor.forClass(String.class);
+        verify(emailService).sendMail(eq("ana@email.com"), any(), text.capture());
+        assertThat(text.getValue()).isEqualTo("Olá Ana,\n- Dom Casmurro até 05/10/2021\n- Iracema até 06/10/2021\n");
+        verify(emailService).sendMail(eq("bruno@email.com"), any(), eq("Olá Bruno,\n- Dom Casmurro até 05/10/2021\n"));
+        verify(bookService, times(1)).getByIds(anyCollection());
+        verifyNoMoreInteractions(emailService);
+    }
+
+    @Test
+    @DisplayName("Deve agrupar e-mails sem diferenciar maiúsculas e seguir após falha de envio")
+    public void shouldKeepSendingAfterMailFailureTest(){
+        LocalDate loanDate = LocalDate.of(2021, 10, 1);
+        when( loanReportService.getLateLoans(0, 4) ).thenReturn(Arrays.asList(
+                lateLoan(1L, 10L, "Ana", "Ana@Email.com", loanDate),
+                lateLoan(2L, 11L, "Ana", "ana@email.com", loanDate),
+                lateLoan(3L, 10L, "Bruno", "bruno@email.com", loanDate)
+        ));
+        when( bookService.getByIds(anyCollection()) ).thenReturn(Arrays.asList(
+                Book.builder().id(10L).title("Dom Casmurro").build(),
+                Book.builder().id(11L).title("Iracema").build()
+        ));
+        doThrow(new MailSendException("mailbox unavailable"))
+                .when(emailService).sendMail(eq("Ana@Email.com"), any(), any());
+        ReflectionTestUtils.setField(service, "lateLoanShards", 4);
+
+        service.sendMailToLateLoans(0);
+
+        verify(emailService).sendMail(eq("Ana@Email.com"), any(), any());
+        verify(emailService).sendMail(eq("bruno@email.com"), any(), any());
+        verifyNoMoreInteractions(emailService);
+    }
+
+    private static ActiveLoan lateLoan(Long id, Long bookId, String customer, String email, LocalDate loanDate) {
+        return ActiveLoan.builder().loanId(id).bookId(bookId).customer(customer).customerEmail(email)
+                .loanDate(loanDate).build();
+    }
+}
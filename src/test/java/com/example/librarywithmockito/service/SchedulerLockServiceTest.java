@@ -0,0 +1,60 @@
+package com.example.librarywithmockito.service;
+
+import com.example.librarywithmockito.repository.SchedulerLockRepository;
+import com.example.librarywithmockito.service.impl.SchedulerLockServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+public class SchedulerLockServiceTest {
+
+    @Autowired
+    SchedulerLockRepository repository;
+
+    SchedulerLockService replicaA;
+    SchedulerLockService replicaB;
+
+    @BeforeEach
+    public void setUp(){
+        this.replicaA = new SchedulerLockServiceImpl(repository, "replica-a");
+        this.replicaB = new SchedulerLockServiceImpl(repository, "replica-b");
+    }
+
+    @Test
+    @DisplayName("Apenas uma réplica deve obter o lock enquanto ele estiver ativo")
+    public void onlyOneReplicaAcquiresLockTest(){
+        assertThat( replicaA.tryLock("late-loans-0", Duration.ofMinutes(10)) ).isTrue();
+        assertThat( replicaB.tryLock("late-loans-0", Duration.ofMinutes(10)) ).isFalse();
+        assertThat( replicaB.tryLock("late-loans-1", Duration.ofMinutes(10)) ).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve liberar o lock para outra réplica após o tempo mínimo")
+    public void releasedLockCanBeAcquiredTest(){
+        replicaA.tryLock("late-loans-0", Duration.ofMinutes(10));
+        replicaA.unlock("late-loans-0", Duration.ZERO);
+
+        assertThat( replicaB.tryLock("late-loans-0", Duration.ofMinutes(10)) ).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve manter o lock até o tempo mínimo mesmo após liberado")
+    public void lockHeldForAtLeastTest(){
+        replicaA.tryLock("late-loans-0", Duration.ofMinutes(10));
+        replicaA.unlock("late-loans-0", Duration.ofMinutes(5));
+
+        assertThat( replicaB.tryLock("late-loans-0", Duration.ofMinutes(10)) ).isFalse();
+    }
+}
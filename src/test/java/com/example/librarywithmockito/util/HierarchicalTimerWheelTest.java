@@ -0,0 +1,68 @@
+package com.example.librarywithmockito.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HierarchicalTimerWheelTest {
+
+    private static final long TICK = 1_000;
+
+    @Test
+    @DisplayName("Deve disparar cada timer no tick do seu prazo, em qualquer nível")
+    public void shouldFireTimersAtTheirDeadlineTest(){
+        var wheel = new HierarchicalTimerWheel<Long>(TICK, 0);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (long key = 0; key < 2_000; key++) {
+            long deadline = (random.nextInt(300_000) + 1) * TICK;
+            deadlines.add(deadline);
+            wheel.schedule(key, deadline);
+        }
+
+        int fired = 0;
+        for (long now = 0; now <= 300_000 * TICK; now += 37 * TICK) {
+            for (Long key : wheel.advance(now)) {
+                long deadline = deadlines.get(key.intValue());
+                assertThat(deadline).isLessThanOrEqualTo(now).isGreaterThan(now - 37 * TICK);
+                fired++;
+            }
+        }
+
+        assertThat(fired).isEqualTo(2_000);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve disparar timers cancelados ou reagendados")
+    public void shouldNotFireCancelledOrRescheduledTimersTest(){
+        var wheel = new HierarchicalTimerWheel<String>(TICK, 0);
+        wheel.schedule("cancelado", 10 * TICK);
+        wheel.schedule("reagendado", 10 * TICK);
+        wheel.schedule("passado", -5 * TICK);
+
+        wheel.cancel("cancelado");
+        wheel.schedule("reagendado", 5_000 * TICK);
+
+        assertThat(wheel.advance(0)).containsExactly("passado");
+        assertThat(wheel.advance(4_999 * TICK)).isEmpty();
+        assertThat(wheel.advance(5_000 * TICK)).containsExactly("reagendado");
+    }
+
+    @Test
+    @DisplayName("Não deve acumular timers ao reagendar o mesmo prazo")
+    public void shouldKeepTimerWhenRescheduledToSameDeadlineTest(){
+        var wheel = new HierarchicalTimerWheel<String>(TICK, 0);
+        for (int reload = 0; reload < 100; reload++) {
+            wheel.schedule("lembrete", 5_000 * TICK);
+        }
+
+        assertThat(wheel.slotted()).isEqualTo(1);
+        assertThat(wheel.advance(5_000 * TICK)).containsExactly("lembrete");
+    }
+}
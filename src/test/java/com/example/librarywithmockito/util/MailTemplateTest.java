@@ -0,0 +1,30 @@
+package com.example.librarywithmockito.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class MailTemplateTest {
+
+    @Test
+    @DisplayName("Deve substituir os marcadores do template")
+    public void shouldRenderPlaceholdersTest(){
+        var template = MailTemplate.compile("{greeting}, {name}! {greeting}.", "greeting", "name");
+
+        String text = template.render(Map.of("greeting", "Olá", "name", "Fulano")::get);
+
+        assertThat(text).isEqualTo("Olá, Fulano! Olá.");
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar marcadores desconhecidos ao compilar")
+    public void shouldRejectUnknownPlaceholderTest(){
+        Throwable exception = catchThrowable(() -> MailTemplate.compile("Olá {nome}", "customer"));
+
+        assertThat(exception).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("{nome}");
+    }
+}
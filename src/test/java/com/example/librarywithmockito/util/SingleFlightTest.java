@@ -0,0 +1,82 @@
+package com.example.librarywithmockito.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    @Test
+    @DisplayName("Chamadas concorrentes para a mesma chave devem compartilhar uma única carga")
+    public void shouldShareInFlightLoad() throws Exception {
+        var singleFlight = new SingleFlight<String, String>();
+        var loads = new AtomicInteger();
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("isbn", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "livro";
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("isbn", () -> {
+                    loads.incrementAndGet();
+                    return "outro";
+                })));
+            }
+            while (singleFlight.coalesced() < 7) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("livro");
+            for (Future<String> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("livro");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(singleFlight.leaders()).isEqualTo(1);
+            assertThat(singleFlight.inFlight()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve repassar a falha da carga e permitir nova tentativa")
+    public void shouldPropagateFailureAndForgetKey() {
+        var singleFlight = new SingleFlight<String, String>();
+
+        Throwable failure = catchThrowable(() -> singleFlight.execute("isbn", () -> {
+            throw new IllegalStateException("banco fora do ar");
+        }));
+
+        assertThat(failure).isInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute("isbn", () -> "livro")).isEqualTo("livro");
+        assertThat(singleFlight.leaders()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
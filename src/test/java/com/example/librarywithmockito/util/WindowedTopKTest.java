@@ -0,0 +1,71 @@
+package com.example.librarywithmockito.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WindowedTopKTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Test
+    @DisplayName("Deve ordenar as chaves mais frequentes dentro da janela")
+    public void topKeysTest(){
+        WindowedTopK topK = new WindowedTopK(Duration.ofHours(1), Duration.ofDays(1), 10, 0.01, 0.01);
+        long now = 100 * HOUR;
+
+        topK.add(1, 5, now - 3 * HOUR);
+        topK.add(2, 3, now);
+        topK.add(3, 1, now);
+        topK.add(2, 4, now - 30 * HOUR);
+
+        WindowedTopK.Snapshot snapshot = topK.top(2, Duration.ofHours(6), now);
+
+        assertThat( snapshot.getEntries() ).extracting(WindowedTopK.Entry::getKey).containsExactly(1L, 2L);
+        assertThat( snapshot.getEntries() ).extracting(WindowedTopK.Entry::getCount).containsExactly(5L, 3L);
+        assertThat( snapshot.getTotal() ).isEqualTo(9);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar contagens fora da janela consultada")
+    public void windowExpiryTest(){
+        WindowedTopK topK = new WindowedTopK(Duration.ofHours(1), Duration.ofDays(1), 10, 0.01, 0.01);
+        long now = 100 * HOUR;
+
+        topK.add(1, 10, now - 5 * HOUR);
+        topK.add(2, 1, now);
+
+        assertThat( topK.top(10, Duration.ofHours(2), now).getEntries() )
+                .extracting(WindowedTopK.Entry::getKey).containsExactly(2L);
+        assertThat( topK.top(10, Duration.ofHours(6), now).getEntries() )
+                .extracting(WindowedTopK.Entry::getKey).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("As estimativas nunca devem subestimar e devem respeitar o erro máximo")
+    public void errorBoundTest(){
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        long[] counts = new long[2_000];
+        Random random = new Random(42);
+        for (int i = 0; i < 50_000; i++) {
+            int key = (int) Math.min(counts.length - 1, Math.abs(random.nextGaussian()) * 300);
+            counts[key]++;
+            sketch.add(key, 1);
+        }
+
+        long maxOvercount = (long) Math.ceil(0.01 * sketch.total());
+        int violations = 0;
+        for (int key = 0; key < counts.length; key++) {
+            long estimate = sketch.estimate(key);
+            assertThat( estimate ).isGreaterThanOrEqualTo(counts[key]);
+            if( estimate - counts[key] > maxOvercount ){
+                violations++;
+            }
+        }
+        assertThat( violations ).isLessThanOrEqualTo(counts.length / 100);
+    }
+}